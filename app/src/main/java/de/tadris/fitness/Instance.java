@@ -23,21 +23,31 @@ import android.content.Context;
 
 import androidx.annotation.NonNull;
 import androidx.room.Room;
+import androidx.room.RoomDatabase;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import de.tadris.fitness.data.AppDatabase;
+import de.tadris.fitness.data.DatabaseProfile;
+import de.tadris.fitness.data.DatabaseProfileCallback;
 import de.tadris.fitness.data.UserPreferences;
-import de.tadris.fitness.recording.LocationListener;
+import de.tadris.fitness.data.WorkoutLocations;
+import de.tadris.fitness.data.WorkoutRepository;
+import de.tadris.fitness.data.WorkoutRollups;
+import de.tadris.fitness.recording.GpsSamplingController;
+import de.tadris.fitness.recording.LocationEventBus;
+import de.tadris.fitness.recording.PressureHistory;
+import de.tadris.fitness.recording.RecordingScheduler;
 import de.tadris.fitness.util.FitoTrackThemes;
 import de.tadris.fitness.util.unit.UnitUtils;
 
 public class Instance {
 
     private static final String DATABASE_NAME = "fito-track";
+    private static final DatabaseProfile DATABASE_PROFILE = DatabaseProfile.PERFORMANCE;
 
     private static Instance instance;
 
@@ -48,18 +58,29 @@ public class Instance {
         return instance;
     }
 
+    /**
+     * Only used off the main thread, screens use the {@link #workoutRepository}
+     */
     public final AppDatabase db;
-    public final List<LocationListener.LocationChangeListener> locationChangeListeners = new ArrayList<>();
+    public final WorkoutRepository workoutRepository;
+    public final LocationEventBus locationEventBus = new LocationEventBus();
+    public final RecordingScheduler recordingScheduler = new RecordingScheduler();
+    public final GpsSamplingController gpsSamplingController = new GpsSamplingController();
     public final UserPreferences userPreferences;
     public final FitoTrackThemes themes;
 
     private boolean pressureAvailable= false;
-    public float lastPressure= 0;
+    public final PressureHistory pressureHistory = new PressureHistory();
 
     private Instance(Context context) {
         userPreferences= new UserPreferences(context);
         themes = new FitoTrackThemes(context);
-        db = Room.databaseBuilder(context.getApplicationContext(), AppDatabase.class, DATABASE_NAME)
+        ExecutorService dbExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "Database"));
+        RoomDatabase.Builder<AppDatabase> databaseBuilder = Room.databaseBuilder(context.getApplicationContext(), AppDatabase.class, DATABASE_NAME);
+        if (DATABASE_PROFILE.isWriteAheadLogging()) {
+            databaseBuilder.setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING);
+        }
+        db = databaseBuilder
                 .addMigrations(new Migration(1, 2) {
                     @Override
                     public void migrate(@NonNull SupportSQLiteDatabase database) {
@@ -105,9 +126,151 @@ public class Instance {
                             database.endTransaction();
                         }
                     }
+                }, new Migration(3, 4) {
+                    @Override
+                    public void migrate(@NonNull SupportSQLiteDatabase database) {
+                        try {
+                            database.beginTransaction();
+
+                            database.execSQL("CREATE TABLE recording (" +
+                                    "id INTEGER NOT NULL PRIMARY KEY," +
+                                    "start INTEGER NOT NULL," +
+                                    "duration INTEGER NOT NULL," +
+                                    "pauseDuration INTEGER NOT NULL," +
+                                    "workoutType TEXT," +
+                                    "lastUpdate INTEGER NOT NULL);");
+
+                            database.execSQL("CREATE TABLE recording_sample (" +
+                                    "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL," +
+                                    "recording_id INTEGER NOT NULL," +
+                                    "absoluteTime INTEGER NOT NULL," +
+                                    "relativeTime INTEGER NOT NULL," +
+                                    "lat REAL NOT NULL," +
+                                    "lon REAL NOT NULL," +
+                                    "elevation REAL NOT NULL," +
+                                    "speed REAL NOT NULL," +
+                                    "pressure REAL NOT NULL," +
+                                    "FOREIGN KEY (recording_id) REFERENCES recording(id) ON DELETE CASCADE);");
+
+                            database.execSQL("CREATE INDEX index_recording_sample_recording_id ON recording_sample (recording_id)");
+
+                            database.setTransactionSuccessful();
+                        } finally {
+                            database.endTransaction();
+                        }
+                    }
+                }, new Migration(4, 5) {
+                    @Override
+                    public void migrate(@NonNull SupportSQLiteDatabase database) {
+                        try {
+                            database.beginTransaction();
+
+                            database.execSQL("ALTER table workout_sample add COLUMN pressure REAL not null default -1");
+
+                            database.setTransactionSuccessful();
+                        } finally {
+                            database.endTransaction();
+                        }
+                    }
+                }, new Migration(5, 6) {
+                    @Override
+                    public void migrate(@NonNull SupportSQLiteDatabase database) {
+                        try {
+                            database.beginTransaction();
+
+                            database.execSQL("CREATE INDEX IF NOT EXISTS index_workout_sample_workout_id ON workout_sample (workout_id)");
+
+                            database.setTransactionSuccessful();
+                        } finally {
+                            database.endTransaction();
+                        }
+                    }
+                }, new Migration(6, 7) {
+                    @Override
+                    public void migrate(@NonNull SupportSQLiteDatabase database) {
+                        try {
+                            database.beginTransaction();
+
+                            database.execSQL("CREATE INDEX IF NOT EXISTS index_workout_start ON workout (start)");
+
+                            database.setTransactionSuccessful();
+                        } finally {
+                            database.endTransaction();
+                        }
+                    }
+                }, new Migration(7, 8) {
+                    @Override
+                    public void migrate(@NonNull SupportSQLiteDatabase database) {
+                        try {
+                            database.beginTransaction();
+
+                            // Existing samples are converted in the background, see SampleStorage.convertSampleRows()
+                            database.execSQL("CREATE TABLE workout_sample_blob (" +
+                                    "workout_id INTEGER NOT NULL PRIMARY KEY," +
+                                    "count INTEGER NOT NULL," +
+                                    "data BLOB," +
+                                    "FOREIGN KEY (workout_id) REFERENCES workout(id) ON DELETE CASCADE);");
+
+                            database.setTransactionSuccessful();
+                        } finally {
+                            database.endTransaction();
+                        }
+                    }
+                }, new Migration(8, 9) {
+                    @Override
+                    public void migrate(@NonNull SupportSQLiteDatabase database) {
+                        try {
+                            database.beginTransaction();
+
+                            WorkoutRollups.migrate(database);
+
+                            database.setTransactionSuccessful();
+                        } finally {
+                            database.endTransaction();
+                        }
+                    }
+                }, new Migration(9, 10) {
+                    @Override
+                    public void migrate(@NonNull SupportSQLiteDatabase database) {
+                        try {
+                            database.beginTransaction();
+
+                            // Existing workouts are indexed in the background, see WorkoutLocations.indexMissingWorkouts()
+                            WorkoutLocations.createTables(database);
+
+                            database.setTransactionSuccessful();
+                        } finally {
+                            database.endTransaction();
+                        }
+                    }
+                }, new Migration(10, 11) {
+                    @Override
+                    public void migrate(@NonNull SupportSQLiteDatabase database) {
+                        try {
+                            database.beginTransaction();
+
+                            // Existing workouts are marked by the AltitudeRecorrectionJob
+                            database.execSQL("ALTER TABLE workout ADD COLUMN altitudeCorrection INTEGER NOT NULL DEFAULT 0");
+                            database.execSQL("CREATE INDEX IF NOT EXISTS index_workout_altitudeCorrection ON workout (altitudeCorrection)");
+
+                            database.setTransactionSuccessful();
+                        } finally {
+                            database.endTransaction();
+                        }
+                    }
+                })
+                .setQueryExecutor(dbExecutor)
+                .addCallback(new RoomDatabase.Callback() {
+                    @Override
+                    public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                        // Room only creates the tables of the entities
+                        WorkoutRollups.createTriggers(db);
+                        WorkoutLocations.createTables(db);
+                    }
                 })
-                .allowMainThreadQueries()
+                .addCallback(new DatabaseProfileCallback(DATABASE_PROFILE))
                 .build();
+        workoutRepository = new WorkoutRepository(db, dbExecutor);
         UnitUtils.setUnit(context);
     }
 
@@ -106,9 +106,11 @@ public class EnterWorkoutActivity extends InformationActivity implements SelectW
             Toast.makeText(this, R.string.errorEnterValidDuration, Toast.LENGTH_LONG).show();
             return;
         }
-        WorkoutActivity.selectedWorkout = workoutBuilder.insertWorkout(this);
-        startActivity(new Intent(this, ShowWorkoutActivity.class));
-        finish();
+        workoutBuilder.insertWorkout(this, workout -> {
+            WorkoutActivity.setSelectedWorkout(workout);
+            startActivity(new Intent(this, ShowWorkoutActivity.class));
+            finish();
+        }, e -> showErrorDialog(e, R.string.error, R.string.errorSaveWorkoutFailed));
     }
 
     private void updateTextViews() {
@@ -20,15 +20,23 @@
 package de.tadris.fitness.activity;
 
 import android.app.Activity;
+import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
+import android.util.Log;
 
 import de.tadris.fitness.Instance;
 import de.tadris.fitness.R;
+import de.tadris.fitness.data.SampleStorage;
+import de.tadris.fitness.data.WorkoutLocations;
+import de.tadris.fitness.recording.RecordingJournal;
+import de.tadris.fitness.util.AltitudeRecorrectionJob;
 
 public class LauncherActivity extends Activity {
 
+    private static final String TAG = "LauncherActivity";
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -44,9 +52,30 @@ public class LauncherActivity extends Activity {
 
     private void init() {
         Instance.getInstance(this);
+        recoverUnfinishedRecordings();
         start();
     }
 
+    private void recoverUnfinishedRecordings() {
+        Context context = getApplicationContext();
+        new Thread(() -> {
+            // Recovery first, the other jobs are only maintenance and one failing must not stop the rest
+            runJob("Recover recordings", () -> RecordingJournal.recoverUnfinished(context));
+            runJob("Correct altitude", () -> AltitudeRecorrectionJob.run(context));
+            runJob("Convert samples", () -> SampleStorage.convertSampleRows(Instance.getInstance(context).db));
+            runJob("Index locations", () -> WorkoutLocations.indexMissingWorkouts(Instance.getInstance(context).db));
+            Instance.getInstance(context).workoutRepository.checkpoint();
+        }, "LauncherJobs").start();
+    }
+
+    private static void runJob(String name, Runnable job) {
+        try {
+            job.run();
+        } catch (RuntimeException e) {
+            Log.e(TAG, name + " failed", e);
+        }
+    }
+
     private void start() {
         startActivity(new Intent(this, ListWorkoutsActivity.class));
         finish();
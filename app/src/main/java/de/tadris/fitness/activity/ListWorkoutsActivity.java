@@ -30,23 +30,27 @@ import android.view.MenuItem;
 
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.room.InvalidationTracker;
 
 import com.github.clans.fab.FloatingActionMenu;
 
 import de.tadris.fitness.Instance;
 import de.tadris.fitness.R;
-import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutSummary;
 import de.tadris.fitness.data.WorkoutType;
 import de.tadris.fitness.util.DialogUtils;
+import de.tadris.fitness.util.unit.Unit;
+import de.tadris.fitness.util.unit.UnitUtils;
 import de.tadris.fitness.view.WorkoutAdapter;
 
 public class ListWorkoutsActivity extends FitoTrackActivity implements WorkoutAdapter.WorkoutAdapterListener {
 
     private RecyclerView listView;
-    private RecyclerView.Adapter adapter;
+    private WorkoutAdapter adapter;
     private RecyclerView.LayoutManager layoutManager;
     private FloatingActionMenu menu;
-    private Workout[] workouts;
+    private InvalidationTracker.Observer workoutObserver;
+    private Unit shownUnitSystem= UnitUtils.CHOSEN_SYSTEM;
 
 
     @Override
@@ -60,10 +64,14 @@ public class ListWorkoutsActivity extends FitoTrackActivity implements WorkoutAd
         layoutManager= new LinearLayoutManager(this);
         listView.setLayoutManager(layoutManager);
 
+        adapter= new WorkoutAdapter(Instance.getInstance(this).workoutRepository, this);
+        listView.setAdapter(adapter);
+
         menu= findViewById(R.id.workoutListMenu);
         menu.setOnMenuButtonLongClickListener(v -> {
-            if(workouts.length > 0){
-                startRecording(workouts[0].getWorkoutType());
+            WorkoutSummary lastWorkout= adapter.getFirst();
+            if(lastWorkout != null){
+                startRecording(lastWorkout.getWorkoutType());
                 return true;
             }else{
                 return false;
@@ -77,7 +85,9 @@ public class ListWorkoutsActivity extends FitoTrackActivity implements WorkoutAd
 
         checkFirstStart();
 
-        refresh();
+        // The list is loaded once and then updated whenever a workout is added, changed or deleted
+        workoutObserver= Instance.getInstance(this).workoutRepository.addWorkoutObserver(adapter::scheduleReload);
+        adapter.reload();
     }
 
     private void checkFirstStart(){
@@ -110,35 +120,39 @@ public class ListWorkoutsActivity extends FitoTrackActivity implements WorkoutAd
     public void onResume() {
         super.onResume();
 
-        refresh();
+        // Data changes are observed, only a changed unit system requires to bind the rows again
+        if(shownUnitSystem != UnitUtils.CHOSEN_SYSTEM){
+            shownUnitSystem= UnitUtils.CHOSEN_SYSTEM;
+            adapter.notifyDataSetChanged();
+        }
     }
 
     @Override
-    public void onItemClick(int pos, Workout workout) {
-        WorkoutActivity.setSelectedWorkout(workout);
-        startActivity(new Intent(this, ShowWorkoutActivity.class));
+    public void onItemClick(int pos, WorkoutSummary summary) {
+        Instance.getInstance(this).workoutRepository.getWorkout(summary.id, workout -> {
+            if(workout != null){
+                WorkoutActivity.setSelectedWorkout(workout);
+                startActivity(new Intent(this, ShowWorkoutActivity.class));
+            }
+        }, e -> showErrorDialog(e, R.string.error, R.string.errorLoadWorkoutFailed));
     }
 
     @Override
-    public void onItemLongClick(int pos, Workout workout) {
-        DialogUtils.showDeleteWorkoutDialog(this, () -> {
-            Instance.getInstance(ListWorkoutsActivity.this).db.workoutDao().deleteWorkout(workout);
-            refresh();
-        });
+    public void onItemLongClick(int pos, WorkoutSummary summary) {
+        DialogUtils.showDeleteWorkoutDialog(this, () -> Instance.getInstance(this).workoutRepository.deleteWorkout(summary.id, null,
+                e -> showErrorDialog(e, R.string.error, R.string.errorDeleteWorkoutFailed)));
     }
 
-    private void refresh() {
-        loadData();
-        refreshAdapter();
-    }
-
-    private void loadData(){
-        workouts= Instance.getInstance(this).db.workoutDao().getWorkouts();
+    @Override
+    public void onLoadFailed(Exception e) {
+        showErrorDialog(e, R.string.error, R.string.errorLoadWorkoutsFailed);
     }
 
-    private void refreshAdapter(){
-        adapter= new WorkoutAdapter(workouts, this);
-        listView.setAdapter(adapter);
+    @Override
+    protected void onDestroy() {
+        Instance.getInstance(this).workoutRepository.removeObserver(workoutObserver);
+        adapter.cancelScheduledReload();
+        super.onDestroy();
     }
 
     @Override
@@ -41,23 +41,19 @@ import android.widget.TextView;
 
 import androidx.core.app.ActivityCompat;
 
-import org.mapsforge.core.graphics.Paint;
-import org.mapsforge.core.graphics.Style;
 import org.mapsforge.core.model.LatLong;
 import org.mapsforge.map.android.graphics.AndroidGraphicFactory;
 import org.mapsforge.map.android.view.MapView;
 import org.mapsforge.map.layer.download.TileDownloadLayer;
-import org.mapsforge.map.layer.overlay.Polyline;
-
-import java.util.ArrayList;
-import java.util.List;
 
 import de.tadris.fitness.Instance;
 import de.tadris.fitness.R;
 import de.tadris.fitness.data.WorkoutType;
 import de.tadris.fitness.map.MapManager;
+import de.tadris.fitness.map.TrackLayer;
 import de.tadris.fitness.recording.LocationListener;
 import de.tadris.fitness.recording.PressureService;
+import de.tadris.fitness.recording.RecordingScheduler;
 import de.tadris.fitness.recording.WorkoutRecorder;
 import de.tadris.fitness.recording.announcement.AnnouncementGPSStatus;
 import de.tadris.fitness.recording.announcement.VoiceAnnouncements;
@@ -70,8 +66,7 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
     private MapView mapView;
     private TileDownloadLayer downloadLayer;
     private WorkoutRecorder recorder;
-    private Polyline polyline;
-    private final List<LatLong> latLongList = new ArrayList<>();
+    private TrackLayer trackLayer;
     private final InfoViewHolder[] infoViews = new InfoViewHolder[4];
     private TextView timeView;
     private TextView gpsStatusView;
@@ -105,11 +100,11 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
 
         checkPermissions();
 
+        voiceAnnouncements = new VoiceAnnouncements(this, this);
+
         recorder= new WorkoutRecorder(this, ACTIVITY, this);
         recorder.start();
 
-        voiceAnnouncements = new VoiceAnnouncements(this, this);
-
         infoViews[0]= new InfoViewHolder(findViewById(R.id.recordInfo1Title), findViewById(R.id.recordInfo1Value));
         infoViews[1]= new InfoViewHolder(findViewById(R.id.recordInfo2Title), findViewById(R.id.recordInfo2Value));
         infoViews[2]= new InfoViewHolder(findViewById(R.id.recordInfo3Title), findViewById(R.id.recordInfo3Value));
@@ -122,7 +117,7 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
         startUpdater();
         acquireWakelock();
 
-        Instance.getInstance(this).locationChangeListeners.add(this);
+        Instance.getInstance(this).locationEventBus.subscribe(this, mHandler::post);
 
         startListener();
 
@@ -158,36 +153,19 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
     private void setupMap(){
         this.mapView= new MapView(this);
         downloadLayer = MapManager.setupMap(mapView);
-    }
-
-    private void updateLine(){
-        if(polyline != null){
-            mapView.getLayerManager().getLayers().remove(polyline);
-        }
-        Paint p= AndroidGraphicFactory.INSTANCE.createPaint();
-        p.setColor(getThemePrimaryColor());
-        p.setStrokeWidth(20);
-        p.setStyle(Style.STROKE);
-        polyline= new Polyline(p, AndroidGraphicFactory.INSTANCE);
-        polyline.setPoints(latLongList);
-        mapView.addLayer(polyline);
+        trackLayer= new TrackLayer(getThemePrimaryColor(), 20);
+        mapView.addLayer(trackLayer);
     }
 
     private void startUpdater(){
-        new Thread(() -> {
-            try{
-                while (recorder.isActive()){
-                    Thread.sleep(1000);
-                    mHandler.post(this::updateDescription);
-                }
-            }catch (InterruptedException e){
-                // Restore the interrupt status to ensure the caller is aware of the interruption.
-                Thread.currentThread().interrupt();
-                e.printStackTrace();
-            }
-        }).start();
+        RecordingScheduler scheduler= Instance.getInstance(this).recordingScheduler;
+        scheduler.schedule(RecordingScheduler.TASK_UI_UPDATER, 1000, false, () -> mHandler.post(this::updateDescription));
     }
 
+    private void stopUpdater(){
+        RecordingScheduler scheduler= Instance.getInstance(this).recordingScheduler;
+        scheduler.cancel(RecordingScheduler.TASK_UI_UPDATER);
+    }
 
     private void updateDescription() {
         long duration = recorder.getDuration();
@@ -202,13 +180,11 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
             infoViews[2].setText(getString(R.string.workoutAvgSpeedShort), avgSpeed);
             infoViews[3].setText(getString(R.string.workoutPauseDuration), UnitUtils.getHourMinuteSecondTime(recorder.getPauseDuration()));
         }
-
-        voiceAnnouncements.check(recorder);
-
     }
 
     private void stop(){
         recorder.stop();
+        stopUpdater();
         if(recorder.getSampleCount() > 3){
             showEnterDescriptionDialog();
         }else{
@@ -225,6 +201,8 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
         if(recorder.getSampleCount() > 3){
             recorder.save();
             saved= true;
+        }else{
+            recorder.discard();
         }
     }
 
@@ -329,13 +307,13 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
     public void onLocationChange(Location location) {
         LatLong latLong= LocationListener.locationToLatLong(location);
         mapView.getModel().mapViewPosition.animateTo(latLong);
-        latLongList.add(latLong);
-        updateLine();
+        trackLayer.addPoint(latLong);
     }
 
     @Override
     protected void onDestroy() {
         recorder.stop();
+        stopUpdater();
         saveIfNotSaved(); // Important to save
 
         // Clear map
@@ -349,7 +327,7 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
         if(wakeLock.isHeld()){
             wakeLock.release();
         }
-        Instance.getInstance(this).locationChangeListeners.remove(this);
+        Instance.getInstance(this).locationEventBus.unsubscribe(this);
         stopListener();
     }
 
@@ -358,6 +336,7 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
         super.onPause();
         downloadLayer.onPause();
         isResumed= false;
+        Instance.getInstance(this).recordingScheduler.setScreenOn(false);
     }
 
     public void onResume(){
@@ -365,6 +344,7 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
         enableLockScreenVisibility();
         downloadLayer.onResume();
         isResumed= true;
+        Instance.getInstance(this).recordingScheduler.setScreenOn(true);
     }
 
     private void enableLockScreenVisibility() {
@@ -420,6 +400,11 @@ public class RecordWorkoutActivity extends FitoTrackActivity implements Location
         });
     }
 
+    @Override
+    public void onStatisticsUpdate() {
+        voiceAnnouncements.onStatisticsUpdate(recorder);
+    }
+
     @Override
     public void onVoiceAnnouncementIsReady(boolean available) {
     }
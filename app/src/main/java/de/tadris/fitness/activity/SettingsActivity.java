@@ -39,6 +39,7 @@ import androidx.core.content.FileProvider;
 import java.io.File;
 import java.io.IOException;
 
+import de.tadris.fitness.Instance;
 import de.tadris.fitness.R;
 import de.tadris.fitness.export.BackupController;
 import de.tadris.fitness.export.RestoreController;
@@ -93,6 +94,10 @@ public class SettingsActivity extends FitoTrackSettingsActivity {
             showExportDialog();
             return true;
         });
+        findPreference("rebuildStatistics").setOnPreferenceClickListener(preference -> {
+            rebuildStatistics();
+            return true;
+        });
 
     }
 
@@ -164,6 +169,12 @@ public class SettingsActivity extends FitoTrackSettingsActivity {
         }).start();
     }
 
+    private void rebuildStatistics() {
+        Instance.getInstance(this).workoutRepository.rebuildRollups(differences ->
+                        Toast.makeText(this, getString(R.string.statisticsRebuilt, differences), Toast.LENGTH_LONG).show(),
+                e -> showErrorDialog(e, R.string.error, R.string.errorRebuildStatisticsFailed));
+    }
+
     private void showImportDialog() {
         if (!checkAndRequestPermissions()) {
             return;
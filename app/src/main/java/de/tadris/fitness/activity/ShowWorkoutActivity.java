@@ -71,6 +71,13 @@ public class ShowWorkoutActivity extends WorkoutActivity implements DialogUtils.
         commentView.setOnClickListener(v -> openEditCommentDialog());
         updateCommentText();
 
+        loadSamples();
+    }
+
+    @Override
+    void onSamplesLoaded() {
+        invalidateOptionsMenu();
+
         addTitle(getString(R.string.workoutTime));
         addKeyValue(getString(R.string.workoutDate), getDate());
         addKeyValue(getString(R.string.workoutDuration), UnitUtils.getHourMinuteSecondTime(workout.duration),
@@ -116,7 +123,6 @@ public class ShowWorkoutActivity extends WorkoutActivity implements DialogUtils.
 
             heightDiagram.setOnClickListener(v -> startDiagramActivity(ShowWorkoutMapDiagramActivity.DIAGRAM_TYPE_HEIGHT));
         }
-
     }
 
     private void startDiagramActivity(String diagramType) {
@@ -136,8 +142,9 @@ public class ShowWorkoutActivity extends WorkoutActivity implements DialogUtils.
 
     private void changeComment(String comment) {
         workout.comment = comment;
-        Instance.getInstance(this).db.workoutDao().updateWorkout(workout);
         updateCommentText();
+        Instance.getInstance(this).workoutRepository.updateWorkout(workout, null,
+                e -> showErrorDialog(e, R.string.error, R.string.errorSaveWorkoutFailed));
     }
 
     private void updateCommentText() {
@@ -169,9 +176,17 @@ public class ShowWorkoutActivity extends WorkoutActivity implements DialogUtils.
         return true;
     }
 
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        // Export and upload need the samples, they are enabled once the samples are loaded
+        menu.findItem(R.id.actionExportGpx).setEnabled(samplesLoaded);
+        menu.findItem(R.id.actionUploadOSM).setEnabled(samplesLoaded);
+        return super.onPrepareOptionsMenu(menu);
+    }
+
     public void deleteWorkout() {
-        Instance.getInstance(this).db.workoutDao().deleteWorkout(workout);
-        finish();
+        Instance.getInstance(this).workoutRepository.deleteWorkout(workout, this::finish,
+                e -> showErrorDialog(e, R.string.error, R.string.errorDeleteWorkoutFailed));
     }
 
     private void showDeleteDialog() {
@@ -41,6 +41,11 @@ public class ShowWorkoutMapDiagramActivity extends WorkoutActivity {
         initAfterContent();
 
         fullScreenItems = true;
+        loadSamples();
+    }
+
+    @Override
+    void onSamplesLoaded() {
         addMap();
         map.setClickable(true);
 
@@ -50,7 +55,6 @@ public class ShowWorkoutMapDiagramActivity extends WorkoutActivity {
             case DIAGRAM_TYPE_HEIGHT: addHeightDiagram(); break;
             case DIAGRAM_TYPE_SPEED:  addSpeedDiagram();  break;
         }
-
     }
 
 
@@ -63,11 +63,13 @@ public abstract class WorkoutActivity extends InformationActivity {
 
     private static Workout selectedWorkout;
 
-    List<WorkoutSample> samples;
+    List<WorkoutSample> samples= new ArrayList<>();
+    boolean samplesLoaded = false;
     Workout workout;
     private Resources.Theme theme;
     MapView map;
     private TileDownloadLayer downloadLayer;
+    private boolean resumed = false;
     private FixedPixelCircle highlightingCircle;
     final Handler mHandler = new Handler();
 
@@ -76,7 +78,6 @@ public abstract class WorkoutActivity extends InformationActivity {
 
     void initBeforeContent() {
         workout= selectedWorkout;
-        samples= Arrays.asList(Instance.getInstance(this).db.workoutDao().getAllSamplesOfWorkout(workout.id));
         setTheme(Instance.getInstance(this).themes.getWorkoutTypeTheme(workout.getWorkoutType()));
     }
 
@@ -89,6 +90,26 @@ public abstract class WorkoutActivity extends InformationActivity {
         theme= getTheme();
     }
 
+    /**
+     * Loads the samples of the workout in the background, the views that need them are added in {@link #onSamplesLoaded()}
+     */
+    void loadSamples() {
+        Instance.getInstance(this).workoutRepository.getSamplesOfWorkout(workout.id, result -> {
+            if (isDestroyed()) {
+                return;
+            }
+            samples= Arrays.asList(result);
+            samplesLoaded = true;
+            onSamplesLoaded();
+        }, e -> {
+            if (!isDestroyed()) {
+                showErrorDialog(e, R.string.error, R.string.errorLoadWorkoutFailed);
+            }
+        });
+    }
+
+    abstract void onSamplesLoaded();
+
     private void addDiagram(SampleConverter converter) {
         root.addView(getDiagram(converter), new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, fullScreenItems ? ViewGroup.LayoutParams.MATCH_PARENT : getWindowManager().getDefaultDisplay().getWidth()*3/4));
     }
@@ -258,6 +279,9 @@ public abstract class WorkoutActivity extends InformationActivity {
     void addMap(){
         map= new MapView(this);
         downloadLayer = MapManager.setupMap(map);
+        if (resumed) {
+            downloadLayer.onResume();
+        }
 
         WorkoutLayer workoutLayer= new WorkoutLayer(samples, getThemePrimaryColor());
         map.addLayer(workoutLayer);
@@ -311,6 +335,7 @@ public abstract class WorkoutActivity extends InformationActivity {
     @Override
     public void onPause(){
         super.onPause();
+        resumed = false;
         if (downloadLayer != null) {
             downloadLayer.onPause();
         }
@@ -318,6 +343,7 @@ public abstract class WorkoutActivity extends InformationActivity {
 
     public void onResume(){
         super.onResume();
+        resumed = true;
         if (downloadLayer != null) {
             downloadLayer.onResume();
         }
@@ -22,7 +22,8 @@ package de.tadris.fitness.data;
 import androidx.room.Database;
 import androidx.room.RoomDatabase;
 
-@Database(version = 3, entities = {Workout.class, WorkoutSample.class})
+@Database(version = 11, exportSchema = true, entities = {Workout.class, WorkoutSample.class, SampleBlob.class, WorkoutRollup.class, Recording.class, RecordingSample.class})
 public abstract class AppDatabase extends RoomDatabase {
     public abstract WorkoutDao workoutDao();
+    public abstract RecordingDao recordingDao();
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SQLite settings of the app database, applied by the {@link DatabaseProfileCallback} whenever
+ * the database is opened.
+ */
+public class DatabaseProfile {
+
+    /**
+     * The defaults of Room and SQLite
+     */
+    public static final DatabaseProfile DEFAULT = new DatabaseProfile("default", false);
+
+    /**
+     * Write-ahead log that is only synced at checkpoints. Automatic checkpoints are disabled, they
+     * would run on the thread that commits, which is the recording journal while recording. The
+     * {@link WorkoutRepository} runs them instead, after its writes and every few minutes while
+     * recording.
+     * Only settings for writing are changed, the read connections of the framework's pool don't
+     * get the PRAGMAs (see {@link DatabaseProfileCallback}).
+     */
+    public static final DatabaseProfile PERFORMANCE = new DatabaseProfile("performance", true,
+            "synchronous = NORMAL",
+            "wal_autocheckpoint = 0",
+            "journal_size_limit = " + (4L << 20));
+
+    private final String name;
+    private final boolean writeAheadLogging;
+    private final List<String> pragmas;
+
+    private DatabaseProfile(String name, boolean writeAheadLogging, String... pragmas) {
+        this.name = name;
+        this.writeAheadLogging = writeAheadLogging;
+        List<String> statements = new ArrayList<>();
+        for (String pragma : pragmas) {
+            statements.add("PRAGMA " + pragma);
+        }
+        this.pragmas = Collections.unmodifiableList(statements);
+    }
+
+    public static DatabaseProfile getByName(String name) {
+        for (DatabaseProfile profile : Arrays.asList(DEFAULT, PERFORMANCE)) {
+            if (profile.name.equals(name)) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("Unknown database profile " + name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Write-ahead logging has to be enabled through Room, so that the connection pool of the
+     * framework knows about it
+     */
+    public boolean isWriteAheadLogging() {
+        return writeAheadLogging;
+    }
+
+    /**
+     * @return the PRAGMA statements to run when the database was opened
+     */
+    public List<String> getPragmas() {
+        return pragmas;
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.data;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Applies the PRAGMAs of a {@link DatabaseProfile} when Room opens the database.
+ * PRAGMAs are per connection and this only reaches the connection Room uses for writing,
+ * so profiles must not contain settings for reading (e.g. cache or mmap size): the read
+ * connections of the framework's pool would keep the SQLite defaults.
+ */
+public class DatabaseProfileCallback extends RoomDatabase.Callback {
+
+    private static final String TAG = "DatabaseProfile";
+
+    private final DatabaseProfile profile;
+
+    public DatabaseProfileCallback(DatabaseProfile profile) {
+        this.profile = profile;
+    }
+
+    @Override
+    public void onOpen(@NonNull SupportSQLiteDatabase db) {
+        for (String pragma : profile.getPragmas()) {
+            // Some PRAGMAs return the new value, execSQL() refuses statements with results
+            try (Cursor cursor = db.query(pragma)) {
+                cursor.moveToFirst();
+            }
+        }
+        Log.i(TAG, "Opened database with profile " + profile.getName());
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.data;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Journal entry of a workout that is currently being recorded.
+ * It is removed as soon as the workout was saved. If it is still present on the next
+ * app launch the app was killed during the recording and the workout is recovered from it.
+ */
+@Entity(tableName = "recording")
+public class Recording {
+
+    @PrimaryKey
+    public long id;
+
+    public long start;
+
+    public long duration;
+
+    public long pauseDuration;
+
+    public String workoutType;
+
+    /**
+     * Time of the last journal flush
+     */
+    public long lastUpdate;
+
+}
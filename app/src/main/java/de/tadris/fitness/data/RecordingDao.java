@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.data;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Update;
+
+@Dao
+public interface RecordingDao {
+
+    @Query("SELECT * FROM recording")
+    Recording[] getRecordings();
+
+    @Query("SELECT * FROM recording_sample WHERE recording_id = :recording_id ORDER BY id")
+    RecordingSample[] getSamplesOfRecording(long recording_id);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertRecording(Recording recording);
+
+    @Update
+    void updateRecording(Recording recording);
+
+    @Insert
+    void insertSamples(RecordingSample[] samples);
+
+    @Query("DELETE FROM recording_sample WHERE recording_id = :recording_id")
+    void deleteSamplesOfRecording(long recording_id);
+
+    @Query("DELETE FROM recording WHERE id = :recording_id")
+    void deleteRecording(long recording_id);
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.data;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import static androidx.room.ForeignKey.CASCADE;
+
+/**
+ * Raw sample of a workout that is currently being recorded, see {@link Recording}
+ */
+@Entity(tableName = "recording_sample",
+        foreignKeys = @ForeignKey(
+                entity = Recording.class,
+                parentColumns = "id",
+                childColumns = "recording_id",
+                onDelete = CASCADE),
+        indices = @Index("recording_id"))
+public class RecordingSample {
+
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    @ColumnInfo(name = "recording_id")
+    public long recordingId;
+
+    public long absoluteTime;
+
+    public long relativeTime;
+
+    public double lat;
+
+    public double lon;
+
+    public double elevation;
+
+    public double speed;
+
+    public float pressure;
+
+    public static RecordingSample fromWorkoutSample(long recordingId, WorkoutSample sample) {
+        RecordingSample recordingSample = new RecordingSample();
+        recordingSample.recordingId = recordingId;
+        recordingSample.absoluteTime = sample.absoluteTime;
+        recordingSample.relativeTime = sample.relativeTime;
+        recordingSample.lat = sample.lat;
+        recordingSample.lon = sample.lon;
+        recordingSample.elevation = sample.elevation;
+        recordingSample.speed = sample.speed;
+        recordingSample.pressure = sample.pressure;
+        return recordingSample;
+    }
+
+    public WorkoutSample toWorkoutSample() {
+        WorkoutSample sample = new WorkoutSample();
+        sample.absoluteTime = absoluteTime;
+        sample.relativeTime = relativeTime;
+        sample.lat = lat;
+        sample.lon = lon;
+        sample.elevation = elevation;
+        sample.speed = speed;
+        sample.pressure = pressure;
+        return sample;
+    }
+
+}
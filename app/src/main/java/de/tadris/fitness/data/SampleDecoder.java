@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.InflaterInputStream;
+
+import static de.tadris.fitness.data.SampleEncoder.ELEVATION_FACTOR;
+import static de.tadris.fitness.data.SampleEncoder.LAT_LON_FACTOR;
+import static de.tadris.fitness.data.SampleEncoder.PRESSURE_FACTOR;
+import static de.tadris.fitness.data.SampleEncoder.SPEED_FACTOR;
+
+/**
+ * Reads the samples of a blob written by the {@link SampleEncoder} one after another
+ */
+public class SampleDecoder {
+
+    public static WorkoutSample[] decode(byte[] data, long workoutId) throws IOException {
+        SampleDecoder decoder = new SampleDecoder(new ByteArrayInputStream(data), workoutId);
+        WorkoutSample[] samples = new WorkoutSample[decoder.getCount()];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = decoder.next();
+        }
+        return samples;
+    }
+
+    private static final int COLUMN_COUNT = 8;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private final long workoutId;
+    private final int count;
+    private final Column id;
+    private final Column absoluteTime;
+    private final Column relativeTime;
+    private final Column lat;
+    private final Column lon;
+    private final Column elevation;
+    private final Column speed;
+    private final Column pressure;
+    private int position = 0;
+
+    /**
+     * Reads the columns from the input, the input is not closed
+     */
+    public SampleDecoder(InputStream input, long workoutId) throws IOException {
+        this.workoutId = workoutId;
+        int version = input.read();
+        if (version != SampleEncoder.VERSION) {
+            throw new IOException("Unsupported sample blob version " + version);
+        }
+        DataInputStream inflater = new DataInputStream(new InflaterInputStream(input));
+        long count = readVarint(inflater);
+        if (count < 0) {
+            throw new IOException("Invalid sample count " + count);
+        }
+        int[] lengths = new int[COLUMN_COUNT];
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            long length = readVarint(inflater);
+            // Every value takes at least one byte
+            if (length < count || length > Integer.MAX_VALUE) {
+                throw new IOException("Invalid column length " + length + " for " + count + " samples");
+            }
+            lengths[i] = (int) length;
+        }
+        this.count = (int) count;
+        id = readColumn(inflater, lengths[0]);
+        absoluteTime = readColumn(inflater, lengths[1]);
+        relativeTime = readColumn(inflater, lengths[2]);
+        lat = readColumn(inflater, lengths[3]);
+        lon = readColumn(inflater, lengths[4]);
+        elevation = readColumn(inflater, lengths[5]);
+        speed = readColumn(inflater, lengths[6]);
+        pressure = readColumn(inflater, lengths[7]);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean hasNext() {
+        return position < count;
+    }
+
+    public WorkoutSample next() throws IOException {
+        if (!hasNext()) {
+            throw new IllegalStateException("No more samples");
+        }
+        position++;
+        WorkoutSample sample = new WorkoutSample();
+        sample.workoutId = workoutId;
+        sample.id = id.next();
+        sample.absoluteTime = absoluteTime.next();
+        sample.relativeTime = relativeTime.next();
+        sample.lat = lat.next() / LAT_LON_FACTOR;
+        sample.lon = lon.next() / LAT_LON_FACTOR;
+        sample.elevation = elevation.next() / ELEVATION_FACTOR;
+        sample.speed = speed.next() / SPEED_FACTOR;
+        sample.pressure = (float) (pressure.next() / PRESSURE_FACTOR);
+        return sample;
+    }
+
+    private static Column readColumn(DataInputStream input, int length) throws IOException {
+        // The length comes from the blob, so the buffer only grows with the data that is really there
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.min(length, READ_BUFFER_SIZE));
+        byte[] buffer = new byte[Math.min(length, READ_BUFFER_SIZE)];
+        int remaining = length;
+        while (remaining > 0) {
+            int read = input.read(buffer, 0, Math.min(remaining, buffer.length));
+            if (read < 0) {
+                throw new EOFException("Column ends " + remaining + " bytes early");
+            }
+            bytes.write(buffer, 0, read);
+            remaining -= read;
+        }
+        return new Column(bytes.toByteArray());
+    }
+
+    private static long readVarint(InputStream input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = input.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint too long");
+    }
+
+    private static class Column {
+        final byte[] bytes;
+        int position = 0;
+        long previous = 0;
+
+        Column(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long next() throws IOException {
+            long zigzag = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (position == bytes.length || shift >= 64) {
+                    throw new IOException("Corrupt sample column");
+                }
+                int b = bytes[position++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+            }
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            return previous;
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Packs the samples of a workout into a compact blob.
+ *
+ * Every field is stored in its own column as fixed point value: lat/lon in 1e-7 degrees,
+ * elevation in cm, time in ms, speed in mm/s and pressure in 1/100 hPa. A column holds the
+ * difference to the previous sample as zigzag varint, so a regular track needs one or two bytes
+ * per value. The columns are deflated together, which removes the remaining repetition
+ * (e.g. the constant time steps).
+ *
+ * Samples are encoded one at a time while only the varint columns are buffered; the blob is
+ * written when the encoder is closed. See {@link SampleDecoder} for the reverse direction.
+ *
+ * Layout: version byte, then deflated: count, the length of every column and the columns.
+ */
+public class SampleEncoder implements Closeable {
+
+    static final int VERSION = 1;
+
+    static final double LAT_LON_FACTOR = 1e7;
+    static final double ELEVATION_FACTOR = 100;
+    static final double SPEED_FACTOR = 1000;
+    static final double PRESSURE_FACTOR = 100;
+
+    public static byte[] encode(WorkoutSample[] samples) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(samples.length * 4 + 64);
+        try (SampleEncoder encoder = new SampleEncoder(output)) {
+            for (WorkoutSample sample : samples) {
+                encoder.write(sample);
+            }
+        } catch (IOException e) {
+            // ByteArrayOutputStream doesn't throw
+            throw new IllegalStateException(e);
+        }
+        return output.toByteArray();
+    }
+
+    private final OutputStream output;
+    private final Column id = new Column();
+    private final Column absoluteTime = new Column();
+    private final Column relativeTime = new Column();
+    private final Column lat = new Column();
+    private final Column lon = new Column();
+    private final Column elevation = new Column();
+    private final Column speed = new Column();
+    private final Column pressure = new Column();
+    private int count = 0;
+    private boolean closed = false;
+
+    public SampleEncoder(OutputStream output) {
+        this.output = output;
+    }
+
+    public void write(WorkoutSample sample) {
+        if (closed) {
+            throw new IllegalStateException("Encoder is closed");
+        }
+        id.add(sample.id);
+        absoluteTime.add(sample.absoluteTime);
+        relativeTime.add(sample.relativeTime);
+        lat.add(Math.round(sample.lat * LAT_LON_FACTOR));
+        lon.add(Math.round(sample.lon * LAT_LON_FACTOR));
+        elevation.add(Math.round(sample.elevation * ELEVATION_FACTOR));
+        speed.add(Math.round(sample.speed * SPEED_FACTOR));
+        pressure.add(Math.round(sample.pressure * PRESSURE_FACTOR));
+        count++;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Writes the blob and closes the output stream
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        Column[] columns = {id, absoluteTime, relativeTime, lat, lon, elevation, speed, pressure};
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        writeVarint(header, count);
+        for (Column column : columns) {
+            writeVarint(header, column.bytes.size());
+        }
+
+        output.write(VERSION);
+        DeflaterOutputStream deflater = new DeflaterOutputStream(output);
+        header.writeTo(deflater);
+        for (Column column : columns) {
+            column.bytes.writeTo(deflater);
+        }
+        deflater.close();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream output, long value) {
+        while ((value & ~0x7FL) != 0) {
+            output.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.write((int) value);
+    }
+
+    private static class Column {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long previous = 0;
+
+        void add(long value) {
+            long delta = value - previous;
+            previous = value;
+            // Zigzag: small negative deltas become small positive numbers
+            writeVarint(bytes, (delta << 1) ^ (delta >> 63));
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.data;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads and writes the samples of workouts. New samples are stored as one {@link SampleBlob} per
+ * workout; samples of older workouts are read from the workout_sample table until they are converted.
+ */
+public class SampleStorage {
+
+    private static final String TAG = "SampleStorage";
+
+    /**
+     * VACUUM rewrites the whole file and blocks all writes meanwhile, so it only runs after the
+     * conversion if at least half of the file and this amount of bytes are free
+     */
+    private static final long MIN_VACUUM_BYTES = 1 << 20;
+
+    public static WorkoutSample[] getSamples(AppDatabase db, long workoutId) {
+        SampleBlob blob = db.workoutDao().getSampleBlob(workoutId);
+        if (blob == null) {
+            return db.workoutDao().getSampleRowsOfWorkout(workoutId);
+        }
+        return decode(blob);
+    }
+
+    /**
+     * @return the samples of all workouts
+     */
+    public static List<WorkoutSample> getAllSamples(AppDatabase db) {
+        List<WorkoutSample> samples = new ArrayList<>(Arrays.asList(db.workoutDao().getSampleRows()));
+        for (SampleBlob blob : db.workoutDao().getSampleBlobs()) {
+            Collections.addAll(samples, decode(blob));
+        }
+        return samples;
+    }
+
+    /**
+     * Stores the samples of the workout as blob and removes the rows it may still have.
+     * Should be called in a transaction.
+     */
+    public static void setSamples(AppDatabase db, long workoutId, WorkoutSample[] samples) {
+        SampleBlob blob = new SampleBlob();
+        blob.workoutId = workoutId;
+        blob.count = samples.length;
+        blob.data = SampleEncoder.encode(samples);
+        db.workoutDao().insertSampleBlob(blob);
+        db.workoutDao().deleteSampleRowsOfWorkout(workoutId);
+    }
+
+    /**
+     * Converts the sample rows of all workouts into blobs, one transaction per workout.
+     * Runs in the background; if the rows took most of the file, the space is given back to the
+     * file system afterwards, otherwise it's reused by new workouts.
+     */
+    public static void convertSampleRows(AppDatabase db) {
+        long[] workoutIds = db.workoutDao().getWorkoutIdsWithSampleRows();
+        if (workoutIds.length == 0) {
+            return;
+        }
+        Log.i(TAG, "Converting samples of " + workoutIds.length + " workouts");
+        for (long workoutId : workoutIds) {
+            db.runInTransaction(() -> {
+                if (db.workoutDao().getWorkoutById(workoutId) == null) {
+                    // Left over from a database without foreign key constraints
+                    db.workoutDao().deleteSampleRowsOfWorkout(workoutId);
+                } else {
+                    setSamples(db, workoutId, db.workoutDao().getSampleRowsOfWorkout(workoutId));
+                }
+            });
+        }
+        vacuumIfMostlyFree(db.getOpenHelper().getWritableDatabase());
+    }
+
+    private static void vacuumIfMostlyFree(SupportSQLiteDatabase database) {
+        long freePages = queryLong(database, "PRAGMA freelist_count");
+        long pageCount = queryLong(database, "PRAGMA page_count");
+        long pageSize = queryLong(database, "PRAGMA page_size");
+        if (freePages * 2 < pageCount || freePages * pageSize < MIN_VACUUM_BYTES) {
+            return;
+        }
+        Log.i(TAG, "Vacuuming " + freePages + " of " + pageCount + " pages");
+        database.execSQL("VACUUM");
+    }
+
+    private static long queryLong(SupportSQLiteDatabase database, String sql) {
+        try (Cursor cursor = database.query(sql)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    private static WorkoutSample[] decode(SampleBlob blob) {
+        try {
+            return SampleDecoder.decode(blob.data, blob.workoutId);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot decode samples of workout " + blob.workoutId, e);
+        }
+    }
+
+}
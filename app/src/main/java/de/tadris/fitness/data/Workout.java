@@ -21,6 +21,7 @@ package de.tadris.fitness.data;
 
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -30,7 +31,9 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
-@Entity(tableName = "workout")
+import de.tadris.fitness.util.AltitudeCorrection;
+
+@Entity(tableName = "workout", indices = {@Index("start"), @Index("altitudeCorrection")})
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Workout{
 
@@ -78,6 +81,13 @@ public class Workout{
 
     public boolean edited;
 
+    /**
+     * How the elevation of the samples was corrected, one of the constants in {@link AltitudeCorrection}.
+     * Backups without this field were made before the correction was interpolated.
+     */
+    @ColumnInfo(defaultValue = "0")
+    public int altitudeCorrection = AltitudeCorrection.LEGACY;
+
     public String toString(){
         if(comment.length() > 2){
             return comment;
@@ -74,10 +74,12 @@ public class WorkoutBuilder {
         return workout;
     }
 
-    public Workout insertWorkout(Context context) {
+    /**
+     * Creates the workout and stores it in the background, the callbacks are called on the main thread
+     */
+    public void insertWorkout(Context context, WorkoutRepository.Callback<Workout> callback, WorkoutRepository.ErrorCallback errorCallback) {
         Workout workout = create(context);
-        Instance.getInstance(context).db.workoutDao().insertWorkout(workout);
-        return workout;
+        Instance.getInstance(context).workoutRepository.insertWorkout(workout, () -> callback.onResult(workout), errorCallback);
     }
 
     public WorkoutType getWorkoutType() {
@@ -22,23 +22,84 @@ package de.tadris.fitness.data;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.RawQuery;
 import androidx.room.Update;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
 @Dao
 public interface WorkoutDao {
 
-    @Query("SELECT * FROM workout_sample WHERE workout_id = :workout_id")
-    WorkoutSample[] getAllSamplesOfWorkout(long workout_id);
+    /**
+     * Samples of workouts that were saved before {@link SampleBlob}s were introduced, use the {@link SampleStorage}
+     */
+    @Query("SELECT * FROM workout_sample WHERE workout_id = :workout_id ORDER BY id")
+    WorkoutSample[] getSampleRowsOfWorkout(long workout_id);
 
     @Query("SELECT * FROM workout ORDER BY start DESC")
     Workout[] getWorkouts();
 
+    @Query("SELECT * FROM workout WHERE id = :id")
+    Workout getWorkoutById(long id);
+
+    @Query("SELECT * FROM workout WHERE altitudeCorrection = :altitudeCorrection ORDER BY id")
+    Workout[] getWorkoutsWithAltitudeCorrection(int altitudeCorrection);
+
+    @Query("UPDATE workout SET altitudeCorrection = :altitudeCorrection WHERE id = :id")
+    void setAltitudeCorrection(long id, int altitudeCorrection);
+
+    @Query("SELECT id, start, duration, comment, length, workoutType FROM workout ORDER BY start DESC, id DESC LIMIT :limit")
+    WorkoutSummary[] getWorkoutSummaries(int limit);
+
+    /**
+     * Keyset pagination: returns the summaries that follow the workout with the given start and id in the list
+     */
+    @Query("SELECT id, start, duration, comment, length, workoutType FROM workout " +
+            "WHERE start <= :start AND (start < :start OR id < :id) ORDER BY start DESC, id DESC LIMIT :limit")
+    WorkoutSummary[] getWorkoutSummariesAfter(long start, long id, int limit);
+
+    /**
+     * Used for queries on the location index, see {@link WorkoutLocations}
+     */
+    @RawQuery
+    WorkoutSummary[] getWorkoutSummaries(SupportSQLiteQuery query);
+
     @Query("SELECT * FROM workout_sample")
-    WorkoutSample[] getSamples();
+    WorkoutSample[] getSampleRows();
+
+    @Query("SELECT DISTINCT workout_id FROM workout_sample")
+    long[] getWorkoutIdsWithSampleRows();
+
+    @Query("DELETE FROM workout_sample WHERE workout_id = :workout_id")
+    void deleteSampleRowsOfWorkout(long workout_id);
+
+    @Query("SELECT * FROM workout_sample_blob WHERE workout_id = :workout_id")
+    SampleBlob getSampleBlob(long workout_id);
+
+    @Query("SELECT * FROM workout_sample_blob")
+    SampleBlob[] getSampleBlobs();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertSampleBlob(SampleBlob blob);
+
+    /**
+     * Rollups are maintained by triggers, see {@link WorkoutRollups}
+     */
+    @Query("SELECT * FROM workout_rollup WHERE period = :period ORDER BY bucket DESC, workoutType DESC")
+    WorkoutRollup[] getRollupsOfPeriod(String period);
+
+    @Query("SELECT * FROM workout_rollup")
+    WorkoutRollup[] getRollups();
+
+    @RawQuery
+    WorkoutRollup[] scanRollups(SupportSQLiteQuery query);
+
+    @Query("DELETE FROM workout_rollup")
+    void deleteRollups();
 
     @Insert
-    void insertWorkoutAndSamples(Workout workout, WorkoutSample[] samples);
+    void insertRollups(WorkoutRollup... rollups);
 
     @Insert
     void insertWorkout(Workout workout);
@@ -49,8 +110,4 @@ public interface WorkoutDao {
     @Update
     void updateWorkout(Workout workout);
 
-    @Insert
-    void insertSample(WorkoutSample sample);
-
-
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.data;
+
+import java.util.List;
+
+/**
+ * Bounding box and start/end point of the track of a workout, indexed by {@link WorkoutLocations}
+ */
+public class WorkoutLocation {
+
+    public final double minLat;
+    public final double maxLat;
+    public final double minLon;
+    public final double maxLon;
+
+    public final double startLat;
+    public final double startLon;
+    public final double endLat;
+    public final double endLon;
+
+    private WorkoutLocation(double minLat, double maxLat, double minLon, double maxLon, double startLat, double startLon, double endLat, double endLon) {
+        this.minLat = minLat;
+        this.maxLat = maxLat;
+        this.minLon = minLon;
+        this.maxLon = maxLon;
+        this.startLat = startLat;
+        this.startLon = startLon;
+        this.endLat = endLat;
+        this.endLon = endLon;
+    }
+
+    /**
+     * @return the location of the samples or null if there are none
+     */
+    public static WorkoutLocation of(List<WorkoutSample> samples) {
+        if (samples.isEmpty()) {
+            return null;
+        }
+        double minLat = Double.MAX_VALUE;
+        double maxLat = -Double.MAX_VALUE;
+        double minLon = Double.MAX_VALUE;
+        double maxLon = -Double.MAX_VALUE;
+        for (WorkoutSample sample : samples) {
+            minLat = Math.min(minLat, sample.lat);
+            maxLat = Math.max(maxLat, sample.lat);
+            minLon = Math.min(minLon, sample.lon);
+            maxLon = Math.max(maxLon, sample.lon);
+        }
+        WorkoutSample start = samples.get(0);
+        WorkoutSample end = samples.get(samples.size() - 1);
+        return new WorkoutLocation(minLat, maxLat, minLon, maxLon, start.lat, start.lon, end.lat, end.lon);
+    }
+
+}
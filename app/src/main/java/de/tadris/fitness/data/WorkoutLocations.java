@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.data;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteException;
+import android.util.Log;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Spatial index of the workouts in two R*Tree tables of SQLite: workout_bounds holds the
+ * bounding box of each track and workout_endpoints its start and end point as boxes of zero size.
+ *
+ * Room cannot declare virtual tables, so they are created here and queried with raw queries.
+ * The R*Tree stores 32 bit floats and rounds boxes outwards, a point is accurate to about a meter.
+ *
+ * The R*Tree module is optional in SQLite. Without it the tables don't exist, workouts are not
+ * indexed and the location queries find nothing.
+ */
+public final class WorkoutLocations {
+
+    private static final String TAG = "WorkoutLocations";
+
+    /**
+     * Mean earth radius in meters
+     */
+    private static final double EARTH_RADIUS = 6371008.8;
+    private static final double METERS_PER_DEGREE = Math.PI * EARTH_RADIUS / 180;
+
+    public static final String[] CREATE_STATEMENTS = {
+            "CREATE VIRTUAL TABLE IF NOT EXISTS workout_bounds USING rtree(id, minLat, maxLat, minLon, maxLon)",
+            "CREATE VIRTUAL TABLE IF NOT EXISTS workout_endpoints USING rtree(id, " +
+                    "minStartLat, maxStartLat, minStartLon, maxStartLon, minEndLat, maxEndLat, minEndLon, maxEndLon)",
+            // Virtual tables have no foreign keys, this also runs for clearAllTables()
+            "CREATE TRIGGER IF NOT EXISTS workout_location_delete AFTER DELETE ON workout BEGIN " +
+                    "DELETE FROM workout_bounds WHERE id = OLD.id; " +
+                    "DELETE FROM workout_endpoints WHERE id = OLD.id; END",
+    };
+
+    public static final String INSERT_BOUNDS = "INSERT OR REPLACE INTO workout_bounds VALUES (?, ?, ?, ?, ?)";
+    public static final String INSERT_ENDPOINTS = "INSERT OR REPLACE INTO workout_endpoints VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SUMMARY_COLUMNS = "w.id, w.start, w.duration, w.comment, w.length, w.workoutType";
+
+    public static final String VIEWPORT_QUERY = "SELECT " + SUMMARY_COLUMNS + " FROM workout_bounds b " +
+            "JOIN workout w ON w.id = b.id " +
+            "WHERE b.maxLat >= ?1 AND b.minLat <= ?2 AND b.maxLon >= ?3 AND b.minLon <= ?4 " +
+            "ORDER BY w.start DESC, w.id DESC";
+
+    /**
+     * Viewport that crosses the antimeridian (west > east), split into the parts east of the
+     * west edge and west of the east edge so that each part is a single index lookup
+     */
+    public static final String ANTIMERIDIAN_VIEWPORT_QUERY = "SELECT * FROM (" +
+            "SELECT " + SUMMARY_COLUMNS + " FROM workout_bounds b JOIN workout w ON w.id = b.id " +
+            "WHERE b.maxLat >= ?1 AND b.minLat <= ?2 AND b.maxLon >= ?3 AND b.minLon <= 180 " +
+            "UNION SELECT " + SUMMARY_COLUMNS + " FROM workout_bounds b JOIN workout w ON w.id = b.id " +
+            "WHERE b.maxLat >= ?1 AND b.minLat <= ?2 AND b.maxLon >= -180 AND b.minLon <= ?4" +
+            ") ORDER BY start DESC, id DESC";
+
+    /**
+     * Workouts with samples that are not indexed yet
+     */
+    public static final String MISSING_QUERY = "SELECT workout_id FROM workout_sample_blob " +
+            "WHERE count > 0 AND workout_id NOT IN (SELECT id FROM workout_bounds)";
+
+    /**
+     * The index finds the starts in a box around the circle, the distance is calculated on a
+     * plane tangent to the earth at the center which is accurate enough for a few kilometers
+     */
+    public static final String STARTING_NEAR_QUERY = buildStartingNearQuery();
+
+    private WorkoutLocations() {
+    }
+
+    /**
+     * Creates the tables if the SQLite of the device has the R*Tree module
+     *
+     * @return whether the tables exist
+     */
+    public static boolean createTables(SupportSQLiteDatabase database) {
+        try {
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS temp.workout_location_probe USING rtree(id, minX, maxX)");
+            database.execSQL("DROP TABLE temp.workout_location_probe");
+        } catch (SQLiteException e) {
+            Log.w(TAG, "No R*Tree module, workouts are not indexed by location", e);
+            return false;
+        }
+        for (String statement : CREATE_STATEMENTS) {
+            database.execSQL(statement);
+        }
+        return true;
+    }
+
+    public static boolean isAvailable(AppDatabase db) {
+        try (Cursor cursor = db.query("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'workout_bounds'", null)) {
+            return cursor.moveToFirst();
+        }
+    }
+
+    /**
+     * Indexes the location of a workout, does nothing if it has no samples.
+     * Should be called in the transaction that stores the samples.
+     */
+    public static void setLocation(AppDatabase db, long workoutId, WorkoutLocation location) {
+        if (location == null || !isAvailable(db)) {
+            return;
+        }
+        SupportSQLiteDatabase database = db.getOpenHelper().getWritableDatabase();
+        database.execSQL(INSERT_BOUNDS, getBoundsArgs(workoutId, location));
+        database.execSQL(INSERT_ENDPOINTS, getEndpointsArgs(workoutId, location));
+    }
+
+    /**
+     * Indexes the workouts that were saved before the index existed, one transaction per workout.
+     * Runs in the background after the samples were converted. The tables are created first in
+     * case SQLite got the R*Tree module since the database was created.
+     */
+    public static void indexMissingWorkouts(AppDatabase db) {
+        if (!createTables(db.getOpenHelper().getWritableDatabase())) {
+            return;
+        }
+        List<Long> workoutIds = new ArrayList<>();
+        // Workouts without samples have no location, they would be selected again on every start
+        try (Cursor cursor = db.query(MISSING_QUERY, null)) {
+            while (cursor.moveToNext()) {
+                workoutIds.add(cursor.getLong(0));
+            }
+        }
+        if (workoutIds.isEmpty()) {
+            return;
+        }
+        Log.i(TAG, "Indexing locations of " + workoutIds.size() + " workouts");
+        for (long workoutId : workoutIds) {
+            db.runInTransaction(() -> setLocation(db, workoutId,
+                    WorkoutLocation.of(Arrays.asList(SampleStorage.getSamples(db, workoutId)))));
+        }
+    }
+
+    /**
+     * @param west may be greater than east if the area crosses the antimeridian
+     * @return query for the {@link WorkoutSummary}s of the workouts whose bounding box intersects the area, newest first
+     */
+    public static SupportSQLiteQuery getViewportQuery(double south, double west, double north, double east) {
+        return new SimpleSQLiteQuery(getViewportSql(west, east), getViewportArgs(south, west, north, east));
+    }
+
+    public static String getViewportSql(double west, double east) {
+        return west > east ? ANTIMERIDIAN_VIEWPORT_QUERY : VIEWPORT_QUERY;
+    }
+
+    /**
+     * @param radius in meters
+     * @return query for the {@link WorkoutSummary}s of the workouts that started within the radius, nearest first
+     */
+    public static SupportSQLiteQuery getStartingNearQuery(double lat, double lon, double radius) {
+        return new SimpleSQLiteQuery(STARTING_NEAR_QUERY, getStartingNearArgs(lat, lon, radius));
+    }
+
+    public static Object[] getBoundsArgs(long workoutId, WorkoutLocation location) {
+        return new Object[]{workoutId, location.minLat, location.maxLat, location.minLon, location.maxLon};
+    }
+
+    public static Object[] getEndpointsArgs(long workoutId, WorkoutLocation location) {
+        return new Object[]{workoutId,
+                location.startLat, location.startLat, location.startLon, location.startLon,
+                location.endLat, location.endLat, location.endLon, location.endLon};
+    }
+
+    public static Object[] getViewportArgs(double south, double west, double north, double east) {
+        return new Object[]{south, north, west, east};
+    }
+
+    public static Object[] getStartingNearArgs(double lat, double lon, double radius) {
+        double metersPerDegreeLon = METERS_PER_DEGREE * Math.cos(Math.toRadians(lat));
+        double latDelta = radius / METERS_PER_DEGREE;
+        // Near the poles every longitude may be within the radius
+        double lonDelta = metersPerDegreeLon > radius / 180 ? radius / metersPerDegreeLon : 180;
+        return new Object[]{lat - latDelta, lat + latDelta, lon - lonDelta, lon + lonDelta,
+                lat, lon, METERS_PER_DEGREE, metersPerDegreeLon, radius * radius};
+    }
+
+    private static String buildStartingNearQuery() {
+        String latDistance = "((e.minStartLat + e.maxStartLat) / 2 - ?5) * ?7";
+        String lonDistance = "((e.minStartLon + e.maxStartLon) / 2 - ?6) * ?8";
+        String squaredDistance = "(" + latDistance + ") * (" + latDistance + ") + (" + lonDistance + ") * (" + lonDistance + ")";
+        return "SELECT " + SUMMARY_COLUMNS + " FROM workout_endpoints e " +
+                "JOIN workout w ON w.id = e.id " +
+                "WHERE e.maxStartLat >= ?1 AND e.minStartLat <= ?2 AND e.maxStartLon >= ?3 AND e.minStartLon <= ?4 " +
+                "AND " + squaredDistance + " <= ?9 " +
+                "ORDER BY " + squaredDistance;
+    }
+
+}
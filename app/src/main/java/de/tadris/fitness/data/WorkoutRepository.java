@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.data;
+
+import android.database.Cursor;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * Asynchronous access to the {@link WorkoutDao}.
+ *
+ * All requests run one after another on the database executor, so a read always sees the
+ * writes that were submitted before it. Results and errors are delivered on the main thread.
+ */
+public class WorkoutRepository {
+
+    private static final String TAG = "WorkoutRepository";
+
+    private final AppDatabase db;
+    private final Executor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public WorkoutRepository(AppDatabase db, Executor executor) {
+        this.db = db;
+        this.executor = executor;
+    }
+
+    public void getWorkout(long id, Callback<Workout> callback, ErrorCallback errorCallback) {
+        query(() -> db.workoutDao().getWorkoutById(id), callback, errorCallback);
+    }
+
+    /**
+     * Loads the next page of the workout list
+     *
+     * @param last the last summary of the previous page or null for the first page
+     */
+    public void getWorkoutSummaries(WorkoutSummary last, int limit, Callback<WorkoutSummary[]> callback, ErrorCallback errorCallback) {
+        if (last == null) {
+            query(() -> db.workoutDao().getWorkoutSummaries(limit), callback, errorCallback);
+        } else {
+            query(() -> db.workoutDao().getWorkoutSummariesAfter(last.start, last.id, limit), callback, errorCallback);
+        }
+    }
+
+    /**
+     * Loads the workouts whose track intersects the area, e.g. the viewport of a map, newest first.
+     * Finds nothing if SQLite has no R*Tree module, see {@link WorkoutLocations}.
+     */
+    public void getWorkoutsInArea(double south, double west, double north, double east, Callback<WorkoutSummary[]> callback, ErrorCallback errorCallback) {
+        query(() -> getWorkoutSummaries(WorkoutLocations.getViewportQuery(south, west, north, east)), callback, errorCallback);
+    }
+
+    /**
+     * Loads the workouts that started within the radius around the given point, nearest first.
+     * Finds nothing if SQLite has no R*Tree module, see {@link WorkoutLocations}.
+     *
+     * @param radius in meters
+     */
+    public void getWorkoutsStartingNear(double lat, double lon, double radius, Callback<WorkoutSummary[]> callback, ErrorCallback errorCallback) {
+        query(() -> getWorkoutSummaries(WorkoutLocations.getStartingNearQuery(lat, lon, radius)), callback, errorCallback);
+    }
+
+    private WorkoutSummary[] getWorkoutSummaries(SupportSQLiteQuery locationQuery) {
+        if (!WorkoutLocations.isAvailable(db)) {
+            return new WorkoutSummary[0];
+        }
+        return db.workoutDao().getWorkoutSummaries(locationQuery);
+    }
+
+    public void getSamplesOfWorkout(long workoutId, Callback<WorkoutSample[]> callback, ErrorCallback errorCallback) {
+        query(() -> SampleStorage.getSamples(db, workoutId), callback, errorCallback);
+    }
+
+    /**
+     * Loads the totals of all periods of the given kind, newest first
+     *
+     * @param period one of the PERIOD_ constants of {@link WorkoutRollups}
+     */
+    public void getRollups(String period, Callback<WorkoutRollup[]> callback, ErrorCallback errorCallback) {
+        query(() -> db.workoutDao().getRollupsOfPeriod(period), callback, errorCallback);
+    }
+
+    /**
+     * Recalculates the rollups from all workouts, see {@link WorkoutRollups#verifyAndRebuild(AppDatabase)}
+     *
+     * @param callback receives the number of rollups that were wrong
+     */
+    public void rebuildRollups(Callback<Integer> callback, ErrorCallback errorCallback) {
+        execute(() -> {
+            try {
+                int differences = WorkoutRollups.verifyAndRebuild(db);
+                mainHandler.post(() -> callback.onResult(differences));
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Rebuilding rollups failed", e);
+                mainHandler.post(() -> errorCallback.onError(e));
+            }
+        });
+    }
+
+    public void insertWorkout(Workout workout, Runnable onComplete, ErrorCallback errorCallback) {
+        update(() -> db.workoutDao().insertWorkout(workout), onComplete, errorCallback);
+    }
+
+    public void updateWorkout(Workout workout, Runnable onComplete, ErrorCallback errorCallback) {
+        update(() -> db.workoutDao().updateWorkout(workout), onComplete, errorCallback);
+    }
+
+    public void deleteWorkout(Workout workout, Runnable onComplete, ErrorCallback errorCallback) {
+        update(() -> db.workoutDao().deleteWorkout(workout), onComplete, errorCallback);
+    }
+
+    public void deleteWorkout(long id, Runnable onComplete, ErrorCallback errorCallback) {
+        update(() -> {
+            Workout workout = db.workoutDao().getWorkoutById(id);
+            if (workout != null) {
+                db.workoutDao().deleteWorkout(workout);
+            }
+        }, onComplete, errorCallback);
+    }
+
+    /**
+     * Calls the listener on the main thread whenever the workout table was changed
+     *
+     * @return the observer to pass to {@link #removeObserver(InvalidationTracker.Observer)}
+     */
+    public InvalidationTracker.Observer addWorkoutObserver(Runnable listener) {
+        InvalidationTracker.Observer observer = new InvalidationTracker.Observer("workout") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                mainHandler.post(listener);
+            }
+        };
+        // Adding the first observer of a table creates triggers in the database
+        executor.execute(() -> db.getInvalidationTracker().addObserver(observer));
+        return observer;
+    }
+
+    public void removeObserver(InvalidationTracker.Observer observer) {
+        executor.execute(() -> db.getInvalidationTracker().removeObserver(observer));
+    }
+
+    /**
+     * Runs a task on the database executor after all requests that were submitted before,
+     * used for work that needs more than a single query, e.g. saving a recorded workout.
+     * The write-ahead log is checkpointed afterwards.
+     */
+    public void execute(Runnable task) {
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Database task failed", e);
+            }
+            runCheckpoint();
+        });
+    }
+
+    /**
+     * Moves the write-ahead log into the database file on the database executor, used after
+     * writes that didn't go through this repository. Automatic checkpoints are disabled by the
+     * {@link DatabaseProfile}, so they never run on the recording journal's thread.
+     */
+    public void checkpoint() {
+        executor.execute(this::runCheckpoint);
+    }
+
+    private void runCheckpoint() {
+        // PASSIVE doesn't wait for readers; in other journal modes it does nothing
+        try (Cursor cursor = db.query("PRAGMA wal_checkpoint(PASSIVE)", null)) {
+            cursor.moveToFirst();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Checkpoint failed", e);
+        }
+    }
+
+    private <T> void query(Callable<T> query, Callback<T> callback, ErrorCallback errorCallback) {
+        executor.execute(() -> {
+            try {
+                T result = query.call();
+                mainHandler.post(() -> callback.onResult(result));
+            } catch (Exception e) {
+                Log.e(TAG, "Query failed", e);
+                mainHandler.post(() -> errorCallback.onError(e));
+            }
+        });
+    }
+
+    /**
+     * @param onComplete called after the update succeeded, may be null
+     */
+    private void update(Runnable update, Runnable onComplete, ErrorCallback errorCallback) {
+        execute(() -> {
+            try {
+                update.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Update failed", e);
+                mainHandler.post(() -> errorCallback.onError(e));
+                return;
+            }
+            if (onComplete != null) {
+                mainHandler.post(onComplete);
+            }
+        });
+    }
+
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    public interface ErrorCallback {
+        void onError(Exception e);
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+
+/**
+ * Totals of all workouts of one type in one period, e.g. all runs in March 2020.
+ * The table is maintained by triggers on the workout table, see {@link WorkoutRollups}
+ */
+@Entity(tableName = "workout_rollup", primaryKeys = {"period", "bucket", "workoutType"})
+public class WorkoutRollup {
+
+    /**
+     * One of the PERIOD_ constants of {@link WorkoutRollups}
+     */
+    @NonNull
+    public String period = "";
+
+    /**
+     * Start of the period in local time: yyyy-MM-dd of the monday for weeks, yyyy-MM for months,
+     * yyyy for years and an empty string for the total
+     */
+    @NonNull
+    public String bucket = "";
+
+    /**
+     * Empty for workouts without type
+     */
+    @NonNull
+    @ColumnInfo(name = "workoutType")
+    public String workoutTypeId = "";
+
+    public int count;
+
+    /**
+     * Sum of the length in meters
+     */
+    public long length;
+
+    /**
+     * Sum of the duration in milliseconds
+     */
+    public long duration;
+
+    /**
+     * Sum of the ascent in meters
+     */
+    public double ascent;
+
+    public long calorie;
+
+    public WorkoutType getWorkoutType() {
+        return WorkoutType.getTypeById(workoutTypeId);
+    }
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.data;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maintains the {@link WorkoutRollup}s so statistics can be read without scanning all workouts.
+ *
+ * Triggers on the workout table add a workout to the rollups of its week, month, year and the
+ * total when it is inserted and remove it when it is deleted; an update does both. This covers
+ * every write path including restoring a backup. Periods are calculated in the local time zone
+ * at the time of the write, {@link #verifyAndRebuild(AppDatabase)} fixes them after it changed.
+ */
+public final class WorkoutRollups {
+
+    public static final String PERIOD_WEEK = "week";
+    public static final String PERIOD_MONTH = "month";
+    public static final String PERIOD_YEAR = "year";
+    public static final String PERIOD_TOTAL = "total";
+
+    private static final String[] PERIODS = {PERIOD_WEEK, PERIOD_MONTH, PERIOD_YEAR, PERIOD_TOTAL};
+
+    /**
+     * Sums of floating point values may differ in the last digits when they were added and removed in another order
+     */
+    private static final double ASCENT_TOLERANCE = 0.01;
+
+    public static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS `workout_rollup` (" +
+            "`period` TEXT NOT NULL, `bucket` TEXT NOT NULL, `workoutType` TEXT NOT NULL, " +
+            "`count` INTEGER NOT NULL, `length` INTEGER NOT NULL, `duration` INTEGER NOT NULL, " +
+            "`ascent` REAL NOT NULL, `calorie` INTEGER NOT NULL, " +
+            "PRIMARY KEY(`period`, `bucket`, `workoutType`))";
+
+    /**
+     * Calculates all rollups from the workout table, the result columns match the {@link WorkoutRollup}
+     */
+    public static final String SCAN_QUERY = buildScanQuery();
+
+    private WorkoutRollups() {
+    }
+
+    /**
+     * Creates the rollup table of database version 9 and fills it with the existing workouts
+     */
+    public static void migrate(SupportSQLiteDatabase database) {
+        database.execSQL(CREATE_TABLE);
+        createTriggers(database);
+        database.execSQL("INSERT INTO workout_rollup " + SCAN_QUERY);
+    }
+
+    public static void createTriggers(SupportSQLiteDatabase database) {
+        for (String trigger : getTriggers()) {
+            database.execSQL(trigger);
+        }
+    }
+
+    /**
+     * Compares the rollups with a fresh scan of the workout table and replaces them if they
+     * differ. Must not be called on the main thread.
+     *
+     * @return the number of rollups that were wrong, missing or obsolete
+     */
+    public static int verifyAndRebuild(AppDatabase db) {
+        WorkoutDao dao = db.workoutDao();
+        db.beginTransaction();
+        try {
+            WorkoutRollup[] scanned = dao.scanRollups(new SimpleSQLiteQuery(SCAN_QUERY));
+            int differences = countDifferences(dao.getRollups(), scanned);
+            if (differences > 0) {
+                dao.deleteRollups();
+                dao.insertRollups(scanned);
+            }
+            db.setTransactionSuccessful();
+            return differences;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public static String[] getTriggers() {
+        return new String[]{
+                "CREATE TRIGGER IF NOT EXISTS workout_rollup_insert AFTER INSERT ON workout BEGIN " +
+                        add("NEW") + "END",
+                "CREATE TRIGGER IF NOT EXISTS workout_rollup_delete AFTER DELETE ON workout BEGIN " +
+                        remove("OLD") + "END",
+                "CREATE TRIGGER IF NOT EXISTS workout_rollup_update " +
+                        "AFTER UPDATE OF start, workoutType, length, duration, ascent, calorie ON workout BEGIN " +
+                        remove("OLD") + add("NEW") + "END",
+        };
+    }
+
+    public static int countDifferences(WorkoutRollup[] stored, WorkoutRollup[] scanned) {
+        Map<String, WorkoutRollup> expected = new HashMap<>();
+        for (WorkoutRollup rollup : scanned) {
+            expected.put(getKey(rollup), rollup);
+        }
+        int differences = 0;
+        for (WorkoutRollup rollup : stored) {
+            WorkoutRollup other = expected.remove(getKey(rollup));
+            if (other == null || !isEqual(rollup, other)) {
+                differences++;
+            }
+        }
+        // Rollups that are missing in the table
+        return differences + expected.size();
+    }
+
+    private static String getKey(WorkoutRollup rollup) {
+        return rollup.period + '\n' + rollup.bucket + '\n' + rollup.workoutTypeId;
+    }
+
+    private static boolean isEqual(WorkoutRollup a, WorkoutRollup b) {
+        return a.count == b.count && a.length == b.length && a.duration == b.duration &&
+                a.calorie == b.calorie && Math.abs(a.ascent - b.ascent) < ASCENT_TOLERANCE;
+    }
+
+    private static String buildScanQuery() {
+        StringBuilder query = new StringBuilder();
+        for (String period : PERIODS) {
+            if (query.length() > 0) {
+                query.append(" UNION ALL ");
+            }
+            query.append("SELECT '").append(period).append("' AS period, ")
+                    .append(getBucket(period, "start")).append(" AS bucket, ")
+                    .append("IFNULL(workoutType, '') AS workoutType, COUNT(*) AS count, SUM(length) AS length, ")
+                    .append("SUM(duration) AS duration, SUM(ascent) AS ascent, SUM(calorie) AS calorie ")
+                    .append("FROM workout GROUP BY 2, 3");
+        }
+        return query.toString();
+    }
+
+    private static String add(String row) {
+        StringBuilder statements = new StringBuilder();
+        for (String period : PERIODS) {
+            statements.append("INSERT OR IGNORE INTO workout_rollup VALUES ('").append(period).append("', ")
+                    .append(getBucket(period, row + ".start")).append(", IFNULL(").append(row)
+                    .append(".workoutType, ''), 0, 0, 0, 0, 0); ");
+            statements.append(update(period, row, '+'));
+        }
+        return statements.toString();
+    }
+
+    private static String remove(String row) {
+        StringBuilder statements = new StringBuilder();
+        for (String period : PERIODS) {
+            statements.append(update(period, row, '-'));
+            statements.append("DELETE FROM workout_rollup WHERE ").append(getCondition(period, row))
+                    .append(" AND count <= 0; ");
+        }
+        return statements.toString();
+    }
+
+    private static String update(String period, String row, char operator) {
+        return "UPDATE workout_rollup SET count = count " + operator + " 1, " +
+                "length = length " + operator + " " + row + ".length, " +
+                "duration = duration " + operator + " " + row + ".duration, " +
+                "ascent = ascent " + operator + " " + row + ".ascent, " +
+                "calorie = calorie " + operator + " " + row + ".calorie " +
+                "WHERE " + getCondition(period, row) + "; ";
+    }
+
+    /**
+     * Matches the primary key, so every statement of the triggers touches a single row
+     */
+    private static String getCondition(String period, String row) {
+        return "period = '" + period + "' AND bucket = " + getBucket(period, row + ".start") +
+                " AND workoutType = IFNULL(" + row + ".workoutType, '')";
+    }
+
+    /**
+     * @param start SQL expression of the start time in milliseconds
+     * @return SQL expression of the bucket, see {@link WorkoutRollup#bucket}
+     */
+    private static String getBucket(String period, String start) {
+        String time = start + " / 1000, 'unixepoch', 'localtime'";
+        switch (period) {
+            case PERIOD_WEEK:
+                // Goes back six days and then forward to the next monday, which is the same day for mondays
+                return "date(" + time + ", '-6 days', 'weekday 1')";
+            case PERIOD_MONTH:
+                return "strftime('%Y-%m', " + time + ")";
+            case PERIOD_YEAR:
+                return "strftime('%Y', " + time + ")";
+            default:
+                return "''";
+        }
+    }
+
+}
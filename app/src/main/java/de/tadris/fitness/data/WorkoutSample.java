@@ -23,6 +23,7 @@ import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
 import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -38,7 +39,8 @@ import static androidx.room.ForeignKey.CASCADE;
                 entity = Workout.class,
                 parentColumns = "id",
                 childColumns = "workout_id",
-                onDelete = CASCADE))
+                onDelete = CASCADE),
+        indices = @Index("workout_id"))
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class WorkoutSample{
 
@@ -60,6 +62,12 @@ public class WorkoutSample{
 
     public double speed;
 
+    /**
+     * Barometric pressure in hPa, -1 if the device has no pressure sensor
+     */
+    @ColumnInfo(defaultValue = "-1")
+    public float pressure = -1;
+
     @JsonIgnore
     @Ignore
     public Entry tmpHeightEntry;
@@ -72,14 +80,6 @@ public class WorkoutSample{
     @Ignore
     public double tmpRoundedSpeed;
 
-    @JsonIgnore
-    @Ignore
-    public double tmpElevation;
-
-    @JsonIgnore
-    @Ignore
-    public float tmpPressure;
-
     @JsonIgnore
     @Ignore
     public float tmpInclination;
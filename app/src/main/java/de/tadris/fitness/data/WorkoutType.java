@@ -26,23 +26,27 @@ import de.tadris.fitness.R;
 
 public enum WorkoutType {
 
-    RUNNING("running", R.string.workoutTypeRunning, 7, true, R.style.Running, R.style.RunningDark),
-    HIKING("hiking", R.string.workoutTypeHiking, 7, true, R.style.Hiking, R.style.HikingDark),
-    CYCLING("cycling", R.string.workoutTypeCycling, 12, true, R.style.Bicycling, R.style.BicyclingDark),
-    OTHER("other", R.string.workoutTypeOther, 7, true, R.style.AppTheme, R.style.AppThemeDark);
+    RUNNING("running", R.string.workoutTypeRunning, 7, 2, 7, true, R.style.Running, R.style.RunningDark),
+    HIKING("hiking", R.string.workoutTypeHiking, 7, 1, 7, true, R.style.Hiking, R.style.HikingDark),
+    CYCLING("cycling", R.string.workoutTypeCycling, 12, 3, 5, true, R.style.Bicycling, R.style.BicyclingDark),
+    OTHER("other", R.string.workoutTypeOther, 7, 0, 7, true, R.style.AppTheme, R.style.AppThemeDark);
 
     public String id;
     @StringRes
     public int title;
     public int minDistance; // Minimum distance between samples
+    public double locationFilterAcceleration; // Expected acceleration in m/s^2 for the location filter, 0 to record raw fixes
+    public int elevationSmoothingRange; // Samples before and after a sample that are used to smooth its elevation
     public boolean hasGPS;
     @StyleRes
     public int lightTheme, darkTheme;
 
-    WorkoutType(String id, int title, int minDistance, boolean hasGPS, int lightTheme, int darkTheme) {
+    WorkoutType(String id, int title, int minDistance, double locationFilterAcceleration, int elevationSmoothingRange, boolean hasGPS, int lightTheme, int darkTheme) {
         this.id = id;
         this.title = title;
         this.minDistance = minDistance;
+        this.locationFilterAcceleration = locationFilterAcceleration;
+        this.elevationSmoothingRange = elevationSmoothingRange;
         this.hasGPS = hasGPS;
         this.lightTheme = lightTheme;
         this.darkTheme = darkTheme;
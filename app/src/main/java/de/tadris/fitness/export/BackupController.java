@@ -31,6 +31,7 @@ import java.util.Arrays;
 import de.tadris.fitness.Instance;
 import de.tadris.fitness.R;
 import de.tadris.fitness.data.AppDatabase;
+import de.tadris.fitness.data.SampleStorage;
 import de.tadris.fitness.util.unit.UnitUtils;
 
 public class BackupController {
@@ -80,7 +81,7 @@ public class BackupController {
     }
 
     private void saveSamplesToContainer(){
-        dataContainer.getSamples().addAll(Arrays.asList(database.workoutDao().getSamples()));
+        dataContainer.getSamples().addAll(SampleStorage.getAllSamples(database));
     }
 
     private void writeContainerToOutputFile() throws IOException {
@@ -26,12 +26,21 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import de.tadris.fitness.Instance;
 import de.tadris.fitness.R;
 import de.tadris.fitness.data.AppDatabase;
+import de.tadris.fitness.data.SampleStorage;
 import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutLocation;
+import de.tadris.fitness.data.WorkoutLocations;
 import de.tadris.fitness.data.WorkoutSample;
+import de.tadris.fitness.util.AltitudeRecorrectionJob;
 
 public class RestoreController {
 
@@ -74,6 +83,9 @@ public class RestoreController {
             restoreWorkouts();
             restoreSamples();
         });
+        // Backups made before the correction was interpolated contain workouts with the old one
+        AltitudeRecorrectionJob.run(context);
+        Instance.getInstance(context).workoutRepository.checkpoint();
     }
 
     private void resetDatabase(){
@@ -92,8 +104,20 @@ public class RestoreController {
     private void restoreSamples(){
         listener.onStatusChanged(80, context.getString(R.string.locationData));
         if (dataContainer.getSamples() != null) {
+            Map<Long, List<WorkoutSample>> samplesOfWorkouts= new HashMap<>();
             for (WorkoutSample sample : dataContainer.getSamples()) {
-                database.workoutDao().insertSample(sample);
+                List<WorkoutSample> samples= samplesOfWorkouts.get(sample.workoutId);
+                if (samples == null) {
+                    samples= new ArrayList<>();
+                    samplesOfWorkouts.put(sample.workoutId, samples);
+                }
+                samples.add(sample);
+            }
+            for (Map.Entry<Long, List<WorkoutSample>> entry : samplesOfWorkouts.entrySet()) {
+                List<WorkoutSample> samples= entry.getValue();
+                Collections.sort(samples, (a, b) -> Long.compare(a.id, b.id));
+                SampleStorage.setSamples(database, entry.getKey(), samples.toArray(new WorkoutSample[0]));
+                WorkoutLocations.setLocation(database, entry.getKey(), WorkoutLocation.of(samples));
             }
         }
     }
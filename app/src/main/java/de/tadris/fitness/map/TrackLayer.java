@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.map;
+
+import org.mapsforge.core.graphics.Canvas;
+import org.mapsforge.core.graphics.Paint;
+import org.mapsforge.core.graphics.Path;
+import org.mapsforge.core.graphics.Style;
+import org.mapsforge.core.model.BoundingBox;
+import org.mapsforge.core.model.LatLong;
+import org.mapsforge.core.model.Point;
+import org.mapsforge.core.util.MercatorProjection;
+import org.mapsforge.map.android.graphics.AndroidGraphicFactory;
+import org.mapsforge.map.layer.Layer;
+
+import java.util.Arrays;
+
+/**
+ * Layer for a track that is still being recorded.
+ *
+ * Unlike {@link org.mapsforge.map.layer.overlay.Polyline} points are only appended: they are
+ * projected once when added and kept in primitive arrays. For lower zoom levels simplified
+ * copies of the track are maintained incrementally so that drawing doesn't get slower the
+ * longer the recording runs.
+ */
+public class TrackLayer extends Layer {
+
+    /**
+     * Simplified copies are kept for tile-256 zoom levels 0 to this level; above it all points are drawn
+     */
+    private static final int MAX_SIMPLIFIED_LEVEL = 16;
+
+    private final Paint paint;
+    private final Path path;
+
+    private final TrackLine fullLine = new TrackLine(0);
+    private final TrackLine[] simplifiedLines = new TrackLine[MAX_SIMPLIFIED_LEVEL + 1];
+
+    // Normalized viewport of the last draw, used to skip redraws for points that are not visible
+    private double viewMinX, viewMinY, viewMaxX, viewMaxY;
+    private boolean drawn = false;
+
+    public TrackLayer(int color, float strokeWidth) {
+        paint = AndroidGraphicFactory.INSTANCE.createPaint();
+        paint.setColor(color);
+        paint.setStrokeWidth(strokeWidth);
+        paint.setStyle(Style.STROKE);
+        path = AndroidGraphicFactory.INSTANCE.createPath();
+        for (int level = 0; level <= MAX_SIMPLIFIED_LEVEL; level++) {
+            // One pixel at this level
+            simplifiedLines[level] = new TrackLine(1d / (256L << level));
+        }
+    }
+
+    public synchronized void addPoint(LatLong latLong) {
+        double x = MercatorProjection.longitudeToPixelX(latLong.longitude, 1);
+        double y = MercatorProjection.latitudeToPixelY(latLong.latitude, 1);
+        boolean visible = isInView(x, y) || (fullLine.size > 0 && isInView(fullLine.getLastX(), fullLine.getLastY()));
+        fullLine.add(x, y);
+        for (TrackLine line : simplifiedLines) {
+            line.add(x, y);
+        }
+        if (visible) {
+            requestRedraw();
+        }
+    }
+
+    private boolean isInView(double x, double y) {
+        return !drawn || (x >= viewMinX && x <= viewMaxX && y >= viewMinY && y <= viewMaxY);
+    }
+
+    @Override
+    public synchronized void draw(BoundingBox boundingBox, byte zoomLevel, Canvas canvas, Point topLeftPoint) {
+        if (fullLine.size < 2) {
+            return;
+        }
+        long mapSize = MercatorProjection.getMapSize(zoomLevel, displayModel.getTileSize());
+
+        viewMinX = MercatorProjection.longitudeToPixelX(boundingBox.minLongitude, 1);
+        viewMaxX = MercatorProjection.longitudeToPixelX(boundingBox.maxLongitude, 1);
+        viewMinY = MercatorProjection.latitudeToPixelY(boundingBox.maxLatitude, 1);
+        viewMaxY = MercatorProjection.latitudeToPixelY(boundingBox.minLatitude, 1);
+        drawn = true;
+
+        // Choose the coarsest line whose tolerance is still below one pixel
+        int level = 64 - Long.numberOfLeadingZeros((mapSize - 1) / 256);
+        TrackLine line = level <= MAX_SIMPLIFIED_LEVEL ? simplifiedLines[level] : fullLine;
+
+        path.clear();
+        line.appendTo(path, mapSize, topLeftPoint, viewMinX, viewMinY, viewMaxX, viewMaxY);
+        if (line != fullLine) {
+            // The latest point might not be part of the simplified line yet
+            path.lineTo((float) (fullLine.getLastX() * mapSize - topLeftPoint.x), (float) (fullLine.getLastY() * mapSize - topLeftPoint.y));
+        }
+        canvas.drawPath(path, paint);
+    }
+
+    /**
+     * Append-only line in normalized mercator coordinates (0..1). Points closer than the
+     * tolerance to the last kept point are dropped. Points are grouped into chunks with
+     * bounding boxes so that invisible parts of the line can be skipped while drawing.
+     */
+    private static class TrackLine {
+
+        private static final int CHUNK_SHIFT = 7;
+        private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+        private final double toleranceSquared;
+        private double[] xs = new double[CHUNK_SIZE];
+        private double[] ys = new double[CHUNK_SIZE];
+        private double[] chunkBounds = new double[4 * 8]; // minX, minY, maxX, maxY per chunk
+        int size = 0;
+
+        TrackLine(double tolerance) {
+            this.toleranceSquared = tolerance * tolerance;
+        }
+
+        void add(double x, double y) {
+            if (size > 0) {
+                double dx = x - xs[size - 1];
+                double dy = y - ys[size - 1];
+                if (dx * dx + dy * dy < toleranceSquared) {
+                    return;
+                }
+            }
+            if (size == xs.length) {
+                xs = Arrays.copyOf(xs, size * 2);
+                ys = Arrays.copyOf(ys, size * 2);
+            }
+            int chunk = size >>> CHUNK_SHIFT;
+            int bounds = chunk * 4;
+            if (bounds == chunkBounds.length) {
+                chunkBounds = Arrays.copyOf(chunkBounds, chunkBounds.length * 2);
+            }
+            if ((size & (CHUNK_SIZE - 1)) == 0) {
+                chunkBounds[bounds] = x;
+                chunkBounds[bounds + 1] = y;
+                chunkBounds[bounds + 2] = x;
+                chunkBounds[bounds + 3] = y;
+                if (size > 0) {
+                    // Include the connection to the previous chunk
+                    includeInChunk(bounds, xs[size - 1], ys[size - 1]);
+                }
+            } else {
+                includeInChunk(bounds, x, y);
+            }
+            xs[size] = x;
+            ys[size] = y;
+            size++;
+        }
+
+        private void includeInChunk(int bounds, double x, double y) {
+            chunkBounds[bounds] = Math.min(chunkBounds[bounds], x);
+            chunkBounds[bounds + 1] = Math.min(chunkBounds[bounds + 1], y);
+            chunkBounds[bounds + 2] = Math.max(chunkBounds[bounds + 2], x);
+            chunkBounds[bounds + 3] = Math.max(chunkBounds[bounds + 3], y);
+        }
+
+        double getLastX() {
+            return xs[size - 1];
+        }
+
+        double getLastY() {
+            return ys[size - 1];
+        }
+
+        void appendTo(Path path, long mapSize, Point topLeftPoint, double minX, double minY, double maxX, double maxY) {
+            int chunkCount = (size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT;
+            boolean connected = false;
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                int bounds = chunk * 4;
+                boolean visible = chunkBounds[bounds] <= maxX && chunkBounds[bounds + 2] >= minX
+                        && chunkBounds[bounds + 1] <= maxY && chunkBounds[bounds + 3] >= minY;
+                // Always draw the last chunk so the path ends at the latest point
+                if (!visible && chunk != chunkCount - 1) {
+                    connected = false;
+                    continue;
+                }
+                int start = chunk << CHUNK_SHIFT;
+                int end = Math.min(size, start + CHUNK_SIZE);
+                if (!connected) {
+                    int first = Math.max(0, start - 1);
+                    path.moveTo((float) (xs[first] * mapSize - topLeftPoint.x), (float) (ys[first] * mapSize - topLeftPoint.y));
+                }
+                for (int i = start; i < end; i++) {
+                    path.lineTo((float) (xs[i] * mapSize - topLeftPoint.x), (float) (ys[i] * mapSize - topLeftPoint.y));
+                }
+                connected = true;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import de.tadris.fitness.data.WorkoutType;
+
+/**
+ * Chooses the GPS update interval during a recording.
+ *
+ * The interval is chosen so that at least every second fix is further away than the minimum
+ * sample distance of the workout type. Slow workouts like hiking get fewer fixes than
+ * running or cycling. While paused or on low battery the interval is raised, if the
+ * signal is lost it is lowered to find the position again quickly. While moving, the
+ * interval stays short enough that the recorder doesn't pause automatically.
+ *
+ * A new interval is only applied after it was chosen twice in a row, so the location
+ * updates aren't re-registered on every speed change.
+ */
+public class GpsSamplingController {
+
+    public static final long[] INTERVALS = {1000, 2000, 3000, 5000};
+
+    private static final int FASTEST = 0;
+    private static final int SLOWEST_MOVING = 2;
+    private static final int PAUSED = 3;
+
+    private static final int LOW_BATTERY_THRESHOLD = 15; // In percent
+
+    private int bucket = FASTEST;
+    private int proposedBucket = FASTEST;
+    private IntervalChangeListener listener;
+
+    public synchronized void setListener(IntervalChangeListener listener) {
+        this.listener = listener;
+    }
+
+    public synchronized long getInterval() {
+        return INTERVALS[bucket];
+    }
+
+    /**
+     * Goes back to the fastest interval, e.g. when a recording starts or stops
+     */
+    public void reset() {
+        setBucket(FASTEST);
+    }
+
+    /**
+     * @param speed          current speed in m/s
+     * @param batteryPercent battery level or -1 if unknown
+     */
+    public void update(WorkoutType workoutType, double speed, WorkoutRecorder.GpsState gpsState, boolean paused, int batteryPercent) {
+        int chosen = chooseBucket(workoutType, speed, gpsState, paused, batteryPercent);
+        synchronized (this) {
+            if (chosen == bucket || chosen != proposedBucket) {
+                proposedBucket = chosen;
+                return;
+            }
+        }
+        setBucket(chosen);
+    }
+
+    private void setBucket(int newBucket) {
+        IntervalChangeListener listener;
+        synchronized (this) {
+            proposedBucket = newBucket;
+            if (newBucket == bucket) {
+                return;
+            }
+            bucket = newBucket;
+            listener = this.listener;
+        }
+        if (listener != null) {
+            listener.onIntervalChanged(INTERVALS[newBucket]);
+        }
+    }
+
+    static int chooseBucket(WorkoutType workoutType, double speed, WorkoutRecorder.GpsState gpsState, boolean paused, int batteryPercent) {
+        if (gpsState == WorkoutRecorder.GpsState.SIGNAL_LOST) {
+            return FASTEST;
+        }
+        if (paused) {
+            return PAUSED;
+        }
+        double timeForMinDistance = speed > 0 ? workoutType.minDistance / speed * 1000 : Double.MAX_VALUE;
+        int bucket = FASTEST;
+        while (bucket < SLOWEST_MOVING && INTERVALS[bucket + 1] * 2 <= timeForMinDistance) {
+            bucket++;
+        }
+        if (batteryPercent >= 0 && batteryPercent < LOW_BATTERY_THRESHOLD) {
+            bucket = Math.min(SLOWEST_MOVING, bucket + 1);
+        }
+        return bucket;
+    }
+
+    public interface IntervalChangeListener {
+        void onIntervalChanged(long interval);
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+/**
+ * Constant velocity Kalman filter for GPS fixes.
+ *
+ * Positions are filtered in a local east/north plane in meters around the first fix.
+ * The accuracy reported with a fix is used as measurement noise. Both axes share the
+ * same noise model, so a single covariance matrix is sufficient.
+ */
+public class KalmanLocationFilter implements LocationFilter {
+
+    private static final double METERS_PER_DEGREE = 111319.49;
+
+    /**
+     * If there was no fix for a longer time the old state says nothing about the new position anymore
+     */
+    private static final long MAX_TIME_GAP = 60 * 1000;
+
+    /**
+     * Used if a fix doesn't report its accuracy
+     */
+    private static final float DEFAULT_ACCURACY = 20;
+
+    /**
+     * Variance of the acceleration in (m/s^2)^2
+     */
+    private final double processNoise;
+
+    private boolean initialized = false;
+    private double originLatitude, originLongitude, metersPerDegreeLongitude;
+    private long lastTime;
+
+    // State: position and velocity per axis
+    private double x, vx, y, vy;
+
+    // Covariance of position and velocity (symmetric)
+    private double p00, p01, p11;
+
+    /**
+     * @param acceleration expected standard deviation of the acceleration in m/s^2
+     */
+    public KalmanLocationFilter(double acceleration) {
+        this.processNoise = acceleration * acceleration;
+    }
+
+    @Override
+    public void update(double latitude, double longitude, float accuracy, long time) {
+        if (accuracy <= 0) {
+            accuracy = DEFAULT_ACCURACY;
+        }
+        double measurementNoise = (double) accuracy * accuracy;
+        long timeDiff = time - lastTime;
+        if (!initialized || timeDiff <= 0 || timeDiff > MAX_TIME_GAP) {
+            init(latitude, longitude, measurementNoise, time);
+            return;
+        }
+        lastTime = time;
+
+        double measuredX = (longitude - originLongitude) * metersPerDegreeLongitude;
+        double measuredY = (latitude - originLatitude) * METERS_PER_DEGREE;
+
+        // Predict
+        double dt = timeDiff / 1000d;
+        double dt2 = dt * dt;
+        x += vx * dt;
+        y += vy * dt;
+        p00 += dt * (2 * p01 + dt * p11) + processNoise * dt2 * dt2 / 4;
+        p01 += dt * p11 + processNoise * dt2 * dt / 2;
+        p11 += processNoise * dt2;
+
+        // Correct
+        double s = p00 + measurementNoise;
+        double k0 = p00 / s;
+        double k1 = p01 / s;
+        double innovationX = measuredX - x;
+        double innovationY = measuredY - y;
+        x += k0 * innovationX;
+        y += k0 * innovationY;
+        vx += k1 * innovationX;
+        vy += k1 * innovationY;
+        p11 -= k1 * p01;
+        p00 -= k0 * p00;
+        p01 -= k0 * p01;
+    }
+
+    private void init(double latitude, double longitude, double measurementNoise, long time) {
+        initialized = true;
+        originLatitude = latitude;
+        originLongitude = longitude;
+        metersPerDegreeLongitude = METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+        lastTime = time;
+        x = 0;
+        y = 0;
+        vx = 0;
+        vy = 0;
+        p00 = measurementNoise;
+        p01 = 0;
+        p11 = measurementNoise; // Velocity is unknown as well
+    }
+
+    @Override
+    public double getLatitude() {
+        return originLatitude + y / METERS_PER_DEGREE;
+    }
+
+    @Override
+    public double getLongitude() {
+        if (metersPerDegreeLongitude == 0) {
+            return originLongitude;
+        }
+        return originLongitude + x / metersPerDegreeLongitude;
+    }
+
+    @Override
+    public void reset() {
+        initialized = false;
+    }
+
+}
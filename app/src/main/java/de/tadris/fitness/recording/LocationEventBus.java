@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import android.location.Location;
+import android.util.Log;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers location fixes from the {@link LocationListener} service to its subscribers.
+ *
+ * Subscribing and unsubscribing is possible from any thread while fixes are dispatched.
+ * Subscribers can be given an executor (e.g. the main thread handler for UI updates) so
+ * that a slow subscriber doesn't delay the delivery to the other ones.
+ */
+public class LocationEventBus {
+
+    private static final String TAG = "LocationEventBus";
+
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Delivers fixes directly on the thread that dispatches them
+     */
+    public void subscribe(LocationListener.LocationChangeListener listener) {
+        subscribe(listener, null);
+    }
+
+    /**
+     * @param executor executor that fixes are delivered on, null to deliver them directly
+     */
+    public void subscribe(LocationListener.LocationChangeListener listener, Executor executor) {
+        unsubscribe(listener);
+        subscriptions.add(new Subscription(listener, executor));
+    }
+
+    public void unsubscribe(LocationListener.LocationChangeListener listener) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.listener == listener) {
+                subscription.active = false;
+                subscriptions.remove(subscription);
+                Log.d(TAG, "Unsubscribed " + subscription);
+            }
+        }
+    }
+
+    public void dispatch(Location location) {
+        for (Subscription subscription : subscriptions) {
+            subscription.deliver(location);
+        }
+    }
+
+    private static class Subscription {
+
+        final LocationListener.LocationChangeListener listener;
+        final Executor executor;
+        volatile boolean active = true;
+
+        // Latency from dispatch until the listener returned
+        final AtomicLong deliveryCount = new AtomicLong();
+        final AtomicLong totalLatency = new AtomicLong();
+        final AtomicLong maxLatency = new AtomicLong();
+
+        Subscription(LocationListener.LocationChangeListener listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        void deliver(Location location) {
+            long dispatchTime = System.nanoTime();
+            if (executor == null) {
+                notifyListener(location, dispatchTime);
+            } else {
+                executor.execute(() -> notifyListener(location, dispatchTime));
+            }
+        }
+
+        private void notifyListener(Location location, long dispatchTime) {
+            if (!active) {
+                // Unsubscribed while the delivery was queued
+                return;
+            }
+            listener.onLocationChange(location);
+            long latency = System.nanoTime() - dispatchTime;
+            deliveryCount.incrementAndGet();
+            totalLatency.addAndGet(latency);
+            long max;
+            do {
+                max = maxLatency.get();
+            } while (latency > max && !maxLatency.compareAndSet(max, latency));
+        }
+
+        @Override
+        public String toString() {
+            long count = deliveryCount.get();
+            long average = count > 0 ? totalLatency.get() / count : 0;
+            return listener.getClass().getSimpleName() + " (deliveries: " + count +
+                    ", avg latency: " + average / 1000 + "us, max latency: " + maxLatency.get() / 1000 + "us)";
+        }
+    }
+
+}
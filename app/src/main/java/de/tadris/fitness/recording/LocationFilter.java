@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+/**
+ * Processing stage for raw location fixes before they are recorded.
+ * Implementations must not allocate per fix, they run for every GPS update.
+ */
+public interface LocationFilter {
+
+    /**
+     * @param accuracy estimated horizontal accuracy in meters
+     * @param time     time of the fix in milliseconds
+     */
+    void update(double latitude, double longitude, float accuracy, long time);
+
+    double getLatitude();
+
+    double getLongitude();
+
+    void reset();
+
+}
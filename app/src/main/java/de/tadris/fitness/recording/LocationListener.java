@@ -28,6 +28,7 @@ import android.location.Location;
 import android.location.LocationManager;
 import android.os.Bundle;
 import android.os.IBinder;
+import android.os.Looper;
 import android.util.Log;
 
 import org.mapsforge.core.model.LatLong;
@@ -48,7 +49,6 @@ public class LocationListener extends Service {
 
     private static final String TAG = "LocationListener";
     private LocationManager mLocationManager = null;
-    private static final int LOCATION_INTERVAL = 1000;
 
     private class LocationChangedListener implements android.location.LocationListener {
         final Location mLastLocation;
@@ -62,9 +62,7 @@ public class LocationListener extends Service {
         public void onLocationChanged(Location location) {
             Log.i(TAG, "onLocationChanged: " + location);
             mLastLocation.set(location);
-            for(LocationChangeListener listener : Instance.getInstance(getBaseContext()).locationChangeListeners){
-                listener.onLocationChange(location);
-            }
+            Instance.getInstance(getBaseContext()).locationEventBus.dispatch(location);
         }
 
         @Override
@@ -113,8 +111,18 @@ public class LocationListener extends Service {
     public void onCreate() {
         Log.i(TAG, "onCreate");
         initializeLocationManager();
+        GpsSamplingController samplingController = Instance.getInstance(this).gpsSamplingController;
+        samplingController.setListener(this::requestLocationUpdates);
+        requestLocationUpdates(samplingController.getInterval());
+    }
+
+    /**
+     * Registers for location updates with the given interval, replacing the previous registration
+     */
+    private void requestLocationUpdates(long interval) {
+        Log.i(TAG, "requestLocationUpdates every " + interval + "ms");
         try {
-            mLocationManager.requestLocationUpdates(LocationManager.GPS_PROVIDER, LOCATION_INTERVAL, 0, gpsListener);
+            mLocationManager.requestLocationUpdates(LocationManager.GPS_PROVIDER, interval, 0, gpsListener, Looper.getMainLooper());
         } catch (java.lang.SecurityException ex) {
             Log.i(TAG, "fail to request location update, ignore", ex);
         } catch (IllegalArgumentException ex) {
@@ -126,6 +134,7 @@ public class LocationListener extends Service {
     public void onDestroy() {
         Log.i(TAG, "onDestroy");
         super.onDestroy();
+        Instance.getInstance(this).gpsSamplingController.setListener(null);
         if (mLocationManager != null) {
             mLocationManager.removeUpdates(gpsListener);
         }
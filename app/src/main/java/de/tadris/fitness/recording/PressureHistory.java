@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+/**
+ * Bounded history of barometer readings.
+ *
+ * Readings are kept as primitive (timestamp, hPa) pairs in a ring buffer. Timestamps are
+ * in the elapsed realtime nanoseconds base used by sensor events and
+ * {@link android.location.Location#getElapsedRealtimeNanos()}.
+ */
+public class PressureHistory {
+
+    private static final int CAPACITY = 256;
+
+    /**
+     * Each reading is replaced by the median of this many readings around it to remove spikes
+     */
+    private static final int MEDIAN_WINDOW = 5;
+
+    private final long[] times = new long[CAPACITY];
+    private final float[] values = new float[CAPACITY];
+    private final float[] medianWindow = new float[MEDIAN_WINDOW];
+    private int start = 0;
+    private int size = 0;
+
+    public synchronized void add(long time, float pressure) {
+        if (size > 0 && time < times[index(size - 1)]) {
+            // Readings have to be in order
+            return;
+        }
+        if (size == CAPACITY) {
+            start = (start + 1) % CAPACITY;
+            size--;
+        }
+        times[index(size)] = time;
+        values[index(size)] = pressure;
+        size++;
+    }
+
+    public synchronized void clear() {
+        start = 0;
+        size = 0;
+    }
+
+    /**
+     * @return time of the latest reading or {@link Long#MIN_VALUE} if there is none
+     */
+    public synchronized long getLatestTime() {
+        return size == 0 ? Long.MIN_VALUE : times[index(size - 1)];
+    }
+
+    /**
+     * @return the median filtered pressure in hPa at the given time, linearly interpolated
+     * between the surrounding readings, or -1 if there are no readings
+     */
+    public synchronized float getPressureAt(long time) {
+        if (size == 0) {
+            return -1;
+        }
+        if (time <= times[index(0)]) {
+            return getFilteredValue(0);
+        }
+        if (time >= times[index(size - 1)]) {
+            return getFilteredValue(size - 1);
+        }
+        // Binary search for the first reading after the time
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[index(mid)] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        long timeBefore = times[index(low - 1)];
+        long timeAfter = times[index(low)];
+        float before = getFilteredValue(low - 1);
+        float after = getFilteredValue(low);
+        if (timeAfter == timeBefore) {
+            return after;
+        }
+        double fraction = (double) (time - timeBefore) / (timeAfter - timeBefore);
+        return (float) (before + (after - before) * fraction);
+    }
+
+    private float getFilteredValue(int position) {
+        int from = Math.max(0, position - MEDIAN_WINDOW / 2);
+        int to = Math.min(size, position + MEDIAN_WINDOW / 2 + 1);
+        int count = to - from;
+        // Insertion sort, the window is tiny
+        for (int i = 0; i < count; i++) {
+            float value = values[index(from + i)];
+            int j = i - 1;
+            while (j >= 0 && medianWindow[j] > value) {
+                medianWindow[j + 1] = medianWindow[j];
+                j--;
+            }
+            medianWindow[j + 1] = value;
+        }
+        return medianWindow[count / 2];
+    }
+
+    private int index(int position) {
+        return (start + position) % CAPACITY;
+    }
+
+}
@@ -37,6 +37,13 @@ public class PressureService extends Service {
 
     private static final String TAG = "PressureService";
 
+    private static final int SAMPLING_PERIOD_US = 200 * 1000;
+
+    /**
+     * Readings may be delivered in batches to let the CPU sleep, samples wait for them, see {@link WorkoutRecorder}
+     */
+    private static final int MAX_REPORT_LATENCY_US = 2 * 1000 * 1000;
+
     private SensorManager sensorManager;
     private Instance instance;
     private Sensor pressureSensor;
@@ -46,7 +53,7 @@ public class PressureService extends Service {
 
         @Override
         public void onSensorChanged(SensorEvent event) {
-            instance.lastPressure= event.values[0];
+            instance.pressureHistory.add(event.timestamp, event.values[0]);
         }
 
         @Override
@@ -66,7 +73,8 @@ public class PressureService extends Service {
 
         if (pressureSensor != null){
             instance.setPressureAvailable(true);
-            sensorManager.registerListener(pressureListener, pressureSensor, SensorManager.SENSOR_DELAY_NORMAL);
+            instance.pressureHistory.clear();
+            sensorManager.registerListener(pressureListener, pressureSensor, SAMPLING_PERIOD_US, MAX_REPORT_LATENCY_US);
         } else {
             instance.setPressureAvailable(false);
         }
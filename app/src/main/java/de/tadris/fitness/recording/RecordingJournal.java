@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import de.tadris.fitness.Instance;
+import de.tadris.fitness.data.AppDatabase;
+import de.tadris.fitness.data.Recording;
+import de.tadris.fitness.data.RecordingSample;
+import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutRepository;
+import de.tadris.fitness.data.WorkoutSample;
+import de.tadris.fitness.data.WorkoutType;
+
+/**
+ * Writes the samples of a running recording to the database in small batches so that
+ * a workout survives if the app gets killed while recording.
+ *
+ * Unfinished journals are turned into regular workouts by {@link #recoverUnfinished(Context)}.
+ */
+public class RecordingJournal {
+
+    private static final String TAG = "RecordingJournal";
+
+    /**
+     * Samples are written after this amount of samples or time, whichever comes first
+     */
+    private static final int FLUSH_SAMPLE_COUNT = 30;
+    private static final long FLUSH_INTERVAL = 15 * 1000;
+
+    /**
+     * Automatic checkpoints are disabled by the {@link de.tadris.fitness.data.DatabaseProfile},
+     * so the write-ahead log is checkpointed after this amount of flushes (about five minutes)
+     */
+    private static final int CHECKPOINT_FLUSH_COUNT = 20;
+
+    /**
+     * Journals with less samples are not worth to be recovered, the recorder doesn't save them either
+     */
+    private static final int MIN_RECOVER_SAMPLE_COUNT = 4;
+
+    /**
+     * Id of the journal of the recording that is running or being saved in this process, it must not be recovered
+     */
+    private static volatile long activeRecordingId = -1;
+
+    private final AppDatabase db;
+    private final WorkoutRepository repository;
+    private final Recording recording = new Recording();
+    private final List<RecordingSample> pendingSamples = new ArrayList<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private long lastFlush;
+    private int flushCount;
+
+    RecordingJournal(Context context, WorkoutType workoutType) {
+        this.db = Instance.getInstance(context).db;
+        this.repository = Instance.getInstance(context).workoutRepository;
+        recording.id = System.currentTimeMillis();
+        recording.workoutType = workoutType.id;
+    }
+
+    synchronized void open(long start) {
+        activeRecordingId = recording.id;
+        recording.start = start;
+        lastFlush = System.currentTimeMillis();
+        recording.lastUpdate = lastFlush;
+        Recording copy = copyOfRecording();
+        write(() -> db.recordingDao().insertRecording(copy));
+    }
+
+    long getRecordingId() {
+        return recording.id;
+    }
+
+    synchronized void append(WorkoutSample sample, long duration, long pauseDuration) {
+        pendingSamples.add(RecordingSample.fromWorkoutSample(recording.id, sample));
+        recording.duration = duration;
+        recording.pauseDuration = pauseDuration;
+        if (pendingSamples.size() >= FLUSH_SAMPLE_COUNT || System.currentTimeMillis() - lastFlush >= FLUSH_INTERVAL) {
+            flush();
+        }
+    }
+
+    /**
+     * Drops all samples written so far, used when the recorder resets its values after the first fixes
+     */
+    synchronized void reset(long start) {
+        pendingSamples.clear();
+        recording.start = start;
+        recording.duration = 0;
+        recording.pauseDuration = 0;
+        Recording copy = copyOfRecording();
+        write(() -> db.runInTransaction(() -> {
+            db.recordingDao().deleteSamplesOfRecording(copy.id);
+            db.recordingDao().updateRecording(copy);
+        }));
+    }
+
+    private void flush() {
+        lastFlush = System.currentTimeMillis();
+        recording.lastUpdate = lastFlush;
+        RecordingSample[] batch = pendingSamples.toArray(new RecordingSample[0]);
+        pendingSamples.clear();
+        Recording copy = copyOfRecording();
+        boolean checkpoint = ++flushCount % CHECKPOINT_FLUSH_COUNT == 0;
+        write(() -> {
+            db.runInTransaction(() -> {
+                db.recordingDao().insertSamples(batch);
+                db.recordingDao().updateRecording(copy);
+            });
+            if (checkpoint) {
+                repository.checkpoint();
+            }
+        });
+    }
+
+    /**
+     * Writes all pending samples and stops the journal's thread without waiting for it.
+     * The journal itself stays in the database until it is deleted together with saving the
+     * workout or by {@link #discard()}.
+     *
+     * @param onClosed runs on the journal's thread after the last write
+     */
+    synchronized void close(long duration, long pauseDuration, Runnable onClosed) {
+        if (executor.isShutdown()) {
+            onClosed.run();
+            return;
+        }
+        recording.duration = duration;
+        recording.pauseDuration = pauseDuration;
+        flush();
+        write(onClosed);
+        executor.shutdown();
+    }
+
+    /**
+     * Deletes the journal without saving a workout
+     */
+    synchronized void discard() {
+        pendingSamples.clear();
+        Runnable delete = () -> {
+            db.recordingDao().deleteRecording(recording.id);
+            release();
+        };
+        if (!executor.isShutdown()) {
+            write(delete);
+            executor.shutdown();
+        } else {
+            repository.execute(delete);
+        }
+    }
+
+    /**
+     * Allows {@link #recoverUnfinished(Context)} to recover the journal again, called after the
+     * workout was saved. Until then the journal belongs to this process even if it was closed.
+     */
+    void release() {
+        if (activeRecordingId == recording.id) {
+            activeRecordingId = -1;
+        }
+    }
+
+    /**
+     * Runs a write on the journal's thread. A failed write is logged, the following ones
+     * and the recording itself go on.
+     */
+    private void write(Runnable task) {
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Writing journal " + recording.id + " failed", e);
+            }
+        });
+    }
+
+    private Recording copyOfRecording() {
+        Recording copy = new Recording();
+        copy.id = recording.id;
+        copy.start = recording.start;
+        copy.duration = recording.duration;
+        copy.pauseDuration = recording.pauseDuration;
+        copy.workoutType = recording.workoutType;
+        copy.lastUpdate = recording.lastUpdate;
+        return copy;
+    }
+
+    /**
+     * Saves all workouts whose recording was interrupted by the app being killed
+     */
+    public static void recoverUnfinished(Context context) {
+        AppDatabase db = Instance.getInstance(context).db;
+        for (Recording recording : db.recordingDao().getRecordings()) {
+            if (recording.id == activeRecordingId) {
+                continue;
+            }
+            RecordingSample[] recordingSamples = db.recordingDao().getSamplesOfRecording(recording.id);
+            if (recordingSamples.length < MIN_RECOVER_SAMPLE_COUNT) {
+                Log.i(TAG, "Dropping journal " + recording.id + " with " + recordingSamples.length + " samples");
+                db.recordingDao().deleteRecording(recording.id);
+                continue;
+            }
+            Log.i(TAG, "Recovering journal " + recording.id + " with " + recordingSamples.length + " samples");
+
+            List<WorkoutSample> samples = new ArrayList<>(recordingSamples.length);
+            for (RecordingSample recordingSample : recordingSamples) {
+                samples.add(recordingSample.toWorkoutSample());
+            }
+
+            Workout workout = new Workout();
+            workout.edited = false;
+            workout.comment = "";
+            workout.workoutTypeId = recording.workoutType;
+            workout.start = recording.start;
+            workout.end = recording.lastUpdate;
+            workout.duration = recording.duration;
+            workout.pauseDuration = recording.pauseDuration;
+
+            new WorkoutSaver(context, workout, samples, recording.id).saveWorkout();
+        }
+    }
+
+}
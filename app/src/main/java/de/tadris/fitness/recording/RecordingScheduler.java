@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the periodic tasks of a recording (watchdog, UI updates) on one shared thread.
+ *
+ * Tasks are identified by name: scheduling a task with a name that is already in use replaces
+ * the old task. While the screen is off, tasks that are only needed for the UI are suspended
+ * and the periods of all others are rounded up to a multiple of {@link #SCREEN_OFF_PERIOD}
+ * and aligned, so they are executed together instead of waking up one after another.
+ */
+public class RecordingScheduler {
+
+    private static final String TAG = "RecordingScheduler";
+
+    public static final String TASK_WATCHDOG = "WorkoutWatchdog";
+    public static final String TASK_UI_UPDATER = "RecorderUiUpdater";
+
+    static final long SCREEN_OFF_PERIOD = 5000;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, TAG);
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Task> tasks = new HashMap<>();
+    private boolean screenOn = true;
+
+    /**
+     * @param period            time between two executions in milliseconds
+     * @param runWhileScreenOff false if the task is suspended while the screen is off
+     */
+    public synchronized void schedule(String name, long period, boolean runWhileScreenOff, Runnable runnable) {
+        cancel(name);
+        Task task = new Task(name, period, runWhileScreenOff, runnable);
+        tasks.put(name, task);
+        start(task);
+    }
+
+    public synchronized void cancel(String name) {
+        Task task = tasks.remove(name);
+        if (task != null) {
+            task.stop();
+        }
+    }
+
+    public synchronized void setPeriod(String name, long period) {
+        Task task = tasks.get(name);
+        if (task != null && task.period != period) {
+            task.stop();
+            task.period = period;
+            start(task);
+        }
+    }
+
+    public synchronized boolean isScheduled(String name) {
+        return tasks.containsKey(name);
+    }
+
+    public synchronized void setScreenOn(boolean screenOn) {
+        if (this.screenOn == screenOn) {
+            return;
+        }
+        this.screenOn = screenOn;
+        for (Task task : tasks.values()) {
+            task.stop();
+            start(task);
+        }
+    }
+
+    private void start(Task task) {
+        if (screenOn) {
+            task.future = executor.scheduleAtFixedRate(task, task.period, task.period, TimeUnit.MILLISECONDS);
+        } else if (task.runWhileScreenOff) {
+            long period = getCoalescedPeriod(task.period);
+            long initialDelay = period - System.currentTimeMillis() % period;
+            task.future = executor.scheduleAtFixedRate(task, initialDelay, period, TimeUnit.MILLISECONDS);
+        }
+        // Otherwise the task stays registered and is started again when the screen turns on
+    }
+
+    static long getCoalescedPeriod(long period) {
+        long multiples = (period + SCREEN_OFF_PERIOD - 1) / SCREEN_OFF_PERIOD;
+        return Math.max(1, multiples) * SCREEN_OFF_PERIOD;
+    }
+
+    private static class Task implements Runnable {
+        final String name;
+        final boolean runWhileScreenOff;
+        final Runnable runnable;
+        long period;
+        ScheduledFuture<?> future;
+
+        Task(String name, long period, boolean runWhileScreenOff, Runnable runnable) {
+            this.name = name;
+            this.period = period;
+            this.runWhileScreenOff = runWhileScreenOff;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public void run() {
+            try {
+                runnable.run();
+            } catch (RuntimeException e) {
+                // Don't let one failure cancel all further executions
+                Log.e(TAG, "Task " + name + " failed", e);
+            }
+        }
+
+        void stop() {
+            if (future != null) {
+                future.cancel(false);
+                future = null;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Append-only buffer for recorded samples.
+ *
+ * Only one thread (the sample pipeline worker) may call {@link #add(Object)} and {@link #clear()}.
+ * Any number of other threads may read without locking: elements are stored in fixed
+ * size chunks that are never moved, and the element count is published through a
+ * volatile field after the element was written.
+ */
+public class SampleBuffer<T> {
+
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT; // 1024 samples per chunk
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * Chunk directory and size are published together so that a reader never sees a size
+     * that belongs to another directory (e.g. after {@link #clear()})
+     */
+    private volatile State<T> state = new State<>(new Object[4][], 0);
+
+    public void add(T element) {
+        State<T> current = state;
+        Object[][] chunks = current.chunks;
+        int size = current.size;
+        int chunkIndex = size >>> CHUNK_SHIFT;
+        if (chunkIndex == chunks.length) {
+            Object[][] grown = new Object[chunks.length * 2][];
+            System.arraycopy(chunks, 0, grown, 0, chunks.length);
+            chunks = grown;
+        }
+        if (chunks[chunkIndex] == null) {
+            chunks[chunkIndex] = new Object[CHUNK_SIZE];
+        }
+        chunks[chunkIndex][size & CHUNK_MASK] = element;
+        state = new State<>(chunks, size + 1);
+    }
+
+    public void clear() {
+        state = new State<>(new Object[4][], 0);
+    }
+
+    public int size() {
+        return state.size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return the last element or null if the buffer is empty
+     */
+    public T getLast() {
+        State<T> current = state;
+        if (current.size == 0) {
+            return null;
+        }
+        return current.get(current.size - 1);
+    }
+
+    /**
+     * @return a read-only view of all elements added so far. The view does not change
+     * when new elements are added afterwards.
+     */
+    public List<T> snapshot() {
+        return new Snapshot<>(state);
+    }
+
+    private static class State<T> {
+        final Object[][] chunks;
+        final int size;
+
+        State(Object[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(int index) {
+            return (T) chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+    }
+
+    private static class Snapshot<T> extends AbstractList<T> implements RandomAccess {
+        private final State<T> state;
+
+        Snapshot(State<T> state) {
+            this.state = state;
+        }
+
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= state.size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + state.size);
+            }
+            return state.get(index);
+        }
+
+        @Override
+        public int size() {
+            return state.size;
+        }
+    }
+
+}
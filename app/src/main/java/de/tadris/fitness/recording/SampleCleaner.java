@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import java.util.List;
+
+import de.tadris.fitness.data.WorkoutSample;
+
+/**
+ * Removes samples that don't carry information before a workout is saved:
+ * <ul>
+ *     <li>samples with the same time as the previous sample</li>
+ *     <li>samples with a time before the previous sample, unless more of the following samples
+ *     agree with it: then the previous samples are dropped instead, e.g. a single sample
+ *     with a time far in the future</li>
+ *     <li>samples inside a run of samples at exactly the same position, only the first
+ *     and the last sample of the run are kept</li>
+ * </ul>
+ * The list is compacted in place in a single pass, so cleaning is linear in the number of samples.
+ */
+public class SampleCleaner {
+
+    /**
+     * The following samples that are compared with a sample that is out of order, so
+     * at most one sample less can be dropped as outliers in front of it
+     */
+    private static final int OUTLIER_WINDOW = 5;
+
+    private int droppedSameTime;
+    private int droppedOutOfOrder;
+    private int droppedZeroDistance;
+
+    /**
+     * @param samples samples in recording order, modified in place
+     */
+    public void clean(List<WorkoutSample> samples) {
+        droppedSameTime = 0;
+        droppedOutOfOrder = 0;
+        droppedZeroDistance = 0;
+
+        int kept = 0;
+        for (int i = 0; i < samples.size(); i++) {
+            WorkoutSample sample = samples.get(i);
+            if (kept > 0 && sample.absoluteTime < samples.get(kept - 1).absoluteTime) {
+                int outliers = countOutliers(samples, kept, i);
+                if (outliers == 0) {
+                    droppedOutOfOrder++;
+                    continue;
+                }
+                // The sample is checked against the last sample before the outliers below
+                kept -= outliers;
+                droppedOutOfOrder += outliers;
+            }
+            if (kept > 0) {
+                WorkoutSample last = samples.get(kept - 1);
+                if (sample.absoluteTime == last.absoluteTime) {
+                    droppedSameTime++;
+                    continue;
+                }
+                if (kept > 1 && isSamePosition(sample, last) && isSamePosition(last, samples.get(kept - 2))) {
+                    // The last kept sample is in the middle of the run now, so it is replaced by the new end
+                    droppedZeroDistance++;
+                    samples.set(kept - 1, sample);
+                    continue;
+                }
+            }
+            samples.set(kept++, sample);
+        }
+        if (kept < samples.size()) {
+            samples.subList(kept, samples.size()).clear();
+        }
+    }
+
+    /**
+     * The kept samples with a time after the sample are outliers if more of the following samples,
+     * starting with this one, are in order and before all of them
+     *
+     * @return number of kept samples to drop, 0 if the sample itself is out of order
+     */
+    private static int countOutliers(List<WorkoutSample> samples, int kept, int index) {
+        long time = samples.get(index).absoluteTime;
+        int outliers = 0;
+        while (outliers < kept && samples.get(kept - 1 - outliers).absoluteTime > time) {
+            outliers++;
+            if (outliers >= OUTLIER_WINDOW) {
+                return 0;
+            }
+        }
+        long firstOutlierTime = samples.get(kept - outliers).absoluteTime;
+        int agreeing = 1;
+        for (int i = index + 1; i < samples.size() && agreeing < OUTLIER_WINDOW; i++) {
+            long next = samples.get(i).absoluteTime;
+            if (next <= samples.get(i - 1).absoluteTime || next >= firstOutlierTime) {
+                break;
+            }
+            agreeing++;
+        }
+        return agreeing > outliers ? outliers : 0;
+    }
+
+    private static boolean isSamePosition(WorkoutSample a, WorkoutSample b) {
+        return a.lat == b.lat && a.lon == b.lon;
+    }
+
+    public int getDroppedSameTime() {
+        return droppedSameTime;
+    }
+
+    public int getDroppedOutOfOrder() {
+        return droppedOutOfOrder;
+    }
+
+    public int getDroppedZeroDistance() {
+        return droppedZeroDistance;
+    }
+
+    public int getDropped() {
+        return droppedSameTime + droppedOutOfOrder + droppedZeroDistance;
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import java.util.List;
+
+import de.tadris.fitness.data.WorkoutSample;
+import de.tadris.fitness.data.WorkoutType;
+import de.tadris.fitness.util.ElevationSmoother;
+
+/**
+ * Statistics of the samples of a workout, updated in constant time per sample.
+ *
+ * The recorder feeds every accepted sample, so the live values and the values stored by
+ * the {@link WorkoutSaver} come from the same source without scanning all samples again.
+ *
+ * Ascent and descent are calculated like the saver does with the {@link ElevationSmoother}
+ * of the workout type, see {@link ElevationSmoother.RunningClimb}. The elevation from the
+ * pressure sensor is used if available. The saver works on the corrected elevation, the
+ * geoid height changes by far less than the climb threshold over a workout, so the raw
+ * values give the same result.
+ */
+public class SampleStatistics {
+
+    private static final double EQUATORIAL_RADIUS = 6378137.0;
+
+    private final int smoothingRange;
+
+    private int count = 0;
+    private double distance = 0;
+    private double topSpeed = 0;
+    private double elevationSum = 0;
+    private double pressureSum = 0;
+    private boolean hasPressure = false;
+
+    private double lastLat, lastLon;
+    private long lastTime;
+
+    private ElevationSmoother.RunningClimb climb;
+
+    public SampleStatistics(WorkoutType workoutType) {
+        this.smoothingRange = workoutType.elevationSmoothingRange;
+        this.climb = new ElevationSmoother.RunningClimb(smoothingRange);
+    }
+
+    public static SampleStatistics of(WorkoutType workoutType, List<WorkoutSample> samples) {
+        SampleStatistics statistics = new SampleStatistics(workoutType);
+        for (WorkoutSample sample : samples) {
+            statistics.add(sample);
+        }
+        return statistics;
+    }
+
+    /**
+     * Adds a sample. Samples with the same time as the previous one are ignored
+     * because they are removed before the workout is saved.
+     */
+    public synchronized void add(WorkoutSample sample) {
+        if (count > 0 && sample.absoluteTime == lastTime) {
+            return;
+        }
+        if (count == 0) {
+            hasPressure = sample.pressure != -1;
+        } else {
+            distance += getDistance(lastLat, lastLon, sample.lat, sample.lon);
+        }
+        lastLat = sample.lat;
+        lastLon = sample.lon;
+        lastTime = sample.absoluteTime;
+
+        topSpeed = Math.max(topSpeed, sample.speed);
+        elevationSum += sample.elevation;
+        pressureSum += sample.pressure;
+
+        climb.add(hasPressure ? getAltitude(sample.pressure) : sample.elevation);
+        count++;
+    }
+
+    public synchronized void reset() {
+        count = 0;
+        distance = 0;
+        topSpeed = 0;
+        elevationSum = 0;
+        pressureSum = 0;
+        climb = new ElevationSmoother.RunningClimb(smoothingRange);
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * @return distance in meters
+     */
+    public synchronized double getDistance() {
+        return distance;
+    }
+
+    /**
+     * @return top speed in m/s
+     */
+    public synchronized double getTopSpeed() {
+        return topSpeed;
+    }
+
+    public synchronized double getAverageElevation() {
+        return count == 0 ? 0 : elevationSum / count;
+    }
+
+    public synchronized boolean hasPressure() {
+        return hasPressure;
+    }
+
+    public synchronized double getAveragePressure() {
+        return count == 0 ? 0 : pressureSum / count;
+    }
+
+    public synchronized double getAscent() {
+        return climb.getClimb().ascent;
+    }
+
+    public synchronized double getDescent() {
+        return climb.getClimb().descent;
+    }
+
+    /**
+     * Same formula as android.hardware.SensorManager#getAltitude with standard atmosphere
+     */
+    static double getAltitude(double pressure) {
+        return 44330.0 * (1.0 - Math.pow(pressure / 1013.25, 1.0 / 5.255));
+    }
+
+    /**
+     * Same formula as LatLong#sphericalDistance (haversine) without creating objects
+     */
+    public static double getDistance(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) + Math.cos(Math.toRadians(lat1))
+                * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return c * EQUATORIAL_RADIUS;
+    }
+
+}
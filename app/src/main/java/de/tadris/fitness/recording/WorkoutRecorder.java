@@ -22,22 +22,27 @@ package de.tadris.fitness.recording;
 import android.content.Context;
 import android.graphics.Color;
 import android.location.Location;
+import android.os.BatteryManager;
 import android.util.Log;
 
-import org.mapsforge.core.model.LatLong;
-
 import java.util.ArrayList;
-import java.util.List;
 
 import de.tadris.fitness.Instance;
 import de.tadris.fitness.data.Workout;
 import de.tadris.fitness.data.WorkoutSample;
 import de.tadris.fitness.data.WorkoutType;
+import de.tadris.fitness.recording.pipeline.LocationFilterStage;
+import de.tadris.fitness.recording.pipeline.MinDistanceStage;
+import de.tadris.fitness.recording.pipeline.PipelineStage;
+import de.tadris.fitness.recording.pipeline.PressureStage;
+import de.tadris.fitness.recording.pipeline.SamplePipeline;
+import de.tadris.fitness.recording.pipeline.SampleRecord;
 import de.tadris.fitness.util.CalorieCalculator;
 
 public class WorkoutRecorder implements LocationListener.LocationChangeListener {
 
     private static final int PAUSE_TIME= 10000;
+    private static final int WATCHDOG_INTERVAL= 5000;
 
     /**
      * Time after which the workout is stopped and saved automatically because there is no activity anymore
@@ -46,20 +51,31 @@ public class WorkoutRecorder implements LocationListener.LocationChangeListener
 
     private final Context context;
     private final Workout workout;
-    private RecordingState state;
-    private final List<WorkoutSample> samples= new ArrayList<>();
+    private volatile RecordingState state;
+    private final SampleBuffer<WorkoutSample> samples= new SampleBuffer<>();
+    private final SampleStatistics statistics;
     private long time= 0;
     private long pauseTime= 0;
     private long lastResume;
     private long lastPause= 0;
-    private long lastSampleTime= 0;
-    private double distance= 0;
+    /**
+     * Written by the pipeline's worker, read by the watchdog
+     */
+    private volatile long lastSampleTime= 0;
     private boolean hasBegun = false;
 
+    /**
+     * Saving or discarding waits until the journal has written its last samples, guarded by this
+     */
+    private boolean journalClosed= false;
+    private Runnable afterJournalClosed;
+
     private static final double SIGNAL_BAD_THRESHOLD= 20; // In meters
     private static final int SIGNAL_LOST_THRESHOLD= 10000; // In milliseconds
     private Location lastFix= null;
     private final WorkoutRecorderListener workoutRecorderListener;
+    private final RecordingJournal journal;
+    private final SamplePipeline pipeline;
     private GpsState gpsState= GpsState.SIGNAL_LOST;
 
     public WorkoutRecorder(Context context, WorkoutType workoutType, WorkoutRecorderListener workoutRecorderListener) {
@@ -74,14 +90,21 @@ public class WorkoutRecorder implements LocationListener.LocationChangeListener
         this.workout.comment= "";
 
         this.workout.setWorkoutType(workoutType);
+
+        this.journal= new RecordingJournal(context, workoutType);
+
+        this.statistics= new SampleStatistics(workoutType);
+        this.pipeline= createPipeline(workoutType);
     }
 
     public void start(){
         if(state == RecordingState.IDLE){
             Log.i("Recorder", "Start");
             workout.start= System.currentTimeMillis();
+            journal.open(workout.start);
+            Instance.getInstance(context).gpsSamplingController.reset();
             resume();
-            Instance.getInstance(context).locationChangeListeners.add(this);
+            Instance.getInstance(context).locationEventBus.subscribe(this);
             startWatchdog();
         }else if(state == RecordingState.PAUSED){
             resume();
@@ -95,36 +118,38 @@ public class WorkoutRecorder implements LocationListener.LocationChangeListener
     }
 
     private void startWatchdog(){
-        new Thread(() -> {
-            try {
-                while (isActive()){
-                    checkSignalState();
-                    synchronized (samples){
-                        if(samples.size() > 2){
-                            long timeDiff= System.currentTimeMillis() - lastSampleTime;
-                            if(timeDiff > AUTO_STOP_TIMEOUT){
-                                if(isActive()){
-                                    stop();
-                                    save();
-                                    workoutRecorderListener.onAutoStop();
-                                }
-                            }else if(timeDiff > PAUSE_TIME){
-                                if (state == RecordingState.RUNNING && gpsState != GpsState.SIGNAL_LOST) {
-                                    pause();
-                                }
-                            }else{
-                                if(state == RecordingState.PAUSED){
-                                    resume();
-                                }
-                            }
-                        }
-                    }
-                    Thread.sleep(5000);
+        Instance.getInstance(context).recordingScheduler.schedule(RecordingScheduler.TASK_WATCHDOG, WATCHDOG_INTERVAL, true, this::checkActivity);
+    }
+
+    private void checkActivity(){
+        if(!isActive()){
+            return;
+        }
+        checkSignalState();
+        updateSamplingRate();
+        pipeline.poll();
+        if(state == RecordingState.RUNNING){
+            // Duration changes without new samples
+            workoutRecorderListener.onStatisticsUpdate();
+        }
+        if(samples.size() > 2){
+            long timeDiff= System.currentTimeMillis() - lastSampleTime;
+            if(timeDiff > AUTO_STOP_TIMEOUT){
+                if(isActive()){
+                    stop();
+                    save();
+                    workoutRecorderListener.onAutoStop();
+                }
+            }else if(timeDiff > PAUSE_TIME){
+                if (state == RecordingState.RUNNING && gpsState != GpsState.SIGNAL_LOST) {
+                    pause();
+                }
+            }else{
+                if(state == RecordingState.PAUSED){
+                    resume();
                 }
-            } catch (InterruptedException e) {
-                Log.e("WorkoutWatchdog", "Watchdog thread was interrupted: " + e.getMessage());
             }
-        }, "WorkoutWatchdog").start();
+        }
     }
 
     private void checkSignalState(){
@@ -145,7 +170,23 @@ public class WorkoutRecorder implements LocationListener.LocationChangeListener
         }
     }
 
-    private void resume(){
+    private void updateSamplingRate(){
+        Location fix= lastFix;
+        double speed= fix != null ? fix.getSpeed() : 0;
+        Instance.getInstance(context).gpsSamplingController.update(workout.getWorkoutType(), speed, gpsState, isPaused(), getBatteryLevel());
+    }
+
+    private int getBatteryLevel(){
+        BatteryManager batteryManager= (BatteryManager) context.getSystemService(Context.BATTERY_SERVICE);
+        if(batteryManager == null){
+            return -1;
+        }
+        int level= batteryManager.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY);
+        return level > 0 ? level : -1; // Unsupported devices return 0 or Integer.MIN_VALUE
+    }
+
+    // The time values are changed by the UI, the watchdog and the pipeline's worker
+    private synchronized void resume(){
         Log.i("Recorder", "Resume");
         state= RecordingState.RUNNING;
         lastResume= System.currentTimeMillis();
@@ -154,7 +195,7 @@ public class WorkoutRecorder implements LocationListener.LocationChangeListener
         }
     }
 
-    private void pause() {
+    private synchronized void pause() {
         if(state == RecordingState.RUNNING){
             Log.i("Recorder", "Pause");
             state= RecordingState.PAUSED;
@@ -165,15 +206,45 @@ public class WorkoutRecorder implements LocationListener.LocationChangeListener
 
     public void stop(){
         Log.i("Recorder", "Stop");
-        if(state == RecordingState.PAUSED){
-            resume();
+        long duration;
+        long pauseDuration;
+        synchronized (this) {
+            if(state == RecordingState.PAUSED){
+                resume();
+            }
+            pause();
+            workout.end= System.currentTimeMillis();
+            workout.duration= duration= time;
+            workout.pauseDuration= pauseDuration= pauseTime;
+            state= RecordingState.STOPPED;
+        }
+        Instance.getInstance(context).locationEventBus.unsubscribe(this);
+        Instance.getInstance(context).recordingScheduler.cancel(RecordingScheduler.TASK_WATCHDOG);
+        Instance.getInstance(context).gpsSamplingController.reset();
+        pipeline.finish(() -> {
+            Log.i("Recorder", "Pipeline finished\n" + pipeline.getStatistics());
+            journal.close(duration, pauseDuration, this::onJournalClosed);
+        });
+    }
+
+    private synchronized void onJournalClosed(){
+        journalClosed= true;
+        if(afterJournalClosed != null){
+            afterJournalClosed.run();
+            afterJournalClosed= null;
+        }
+    }
+
+    /**
+     * Runs the action after the journal was closed, immediately if it is closed already.
+     * The action must not block, it may run on the journal's thread.
+     */
+    private synchronized void whenJournalClosed(Runnable action){
+        if(journalClosed){
+            action.run();
+        }else{
+            afterJournalClosed= action;
         }
-        pause();
-        workout.end= System.currentTimeMillis();
-        workout.duration= time;
-        workout.pauseDuration= pauseTime;
-        state= RecordingState.STOPPED;
-        Instance.getInstance(context).locationChangeListeners.remove(this);
     }
 
     public void save(){
@@ -181,82 +252,119 @@ public class WorkoutRecorder implements LocationListener.LocationChangeListener
             throw new IllegalStateException("Cannot save recording, recorder was not stopped. state = " + state);
         }
         Log.i("Recorder", "Save");
-        synchronized (samples){
-            new WorkoutSaver(context, workout, samples).saveWorkout();
+        // The saver deletes the journal, so its last samples have to be written before
+        whenJournalClosed(() -> {
+            WorkoutSaver saver= new WorkoutSaver(context, workout, new ArrayList<>(samples.snapshot()), statistics, journal.getRecordingId());
+            Instance.getInstance(context).workoutRepository.execute(() -> {
+                try {
+                    saver.saveWorkout();
+                } finally {
+                    journal.release();
+                }
+            });
+        });
+    }
+
+    /**
+     * Throws the recording away, used if it is too short to be saved
+     */
+    public void discard(){
+        if(state != RecordingState.STOPPED){
+            throw new IllegalStateException("Cannot discard recording, recorder was not stopped. state = " + state);
         }
+        Log.i("Recorder", "Discard");
+        whenJournalClosed(journal::discard);
     }
 
     public int getSampleCount(){
-        synchronized (samples){
-            return samples.size();
-        }
+        return samples.size();
     }
 
     @Override
     public void onLocationChange(Location location) {
         lastFix= location;
         if(isActive()){
-            double distance= 0;
-            if(getSampleCount() > 0){
-                // Checks whether the minimum distance to last sample was reached
-                // and if the time difference to the last sample is too small
-                synchronized (samples){
-                    WorkoutSample lastSample= samples.get(samples.size() - 1);
-                    distance= LocationListener.locationToLatLong(location).sphericalDistance(new LatLong(lastSample.lat, lastSample.lon));
-                    long timediff= lastSample.absoluteTime - location.getTime();
-                    if (distance < workout.getWorkoutType().minDistance && timediff < 500) {
-                        return;
-                    }
-                }
-            }
-            lastSampleTime= System.currentTimeMillis();
-            if(state == RecordingState.RUNNING && location.getTime() > workout.start){
-                if(samples.size() == 2 && !hasBegun){
-                    initialClearValues();
-                    hasBegun = true; // Do not clear a second time
-                }
-                this.distance+= distance;
-                addToSamples(location);
-            }
+            pipeline.submit(SampleRecord.fromLocation(location));
         }
     }
 
-    private void addToSamples(Location location){
-        WorkoutSample sample= new WorkoutSample();
-        sample.lat= location.getLatitude();
-        sample.lon= location.getLongitude();
-        sample.elevation= location.getAltitude();
-        sample.speed= location.getSpeed();
-        sample.relativeTime= location.getTime() - workout.start - pauseTime;
-        sample.absoluteTime= location.getTime();
-        if(Instance.getInstance(context).isPressureAvailable()){
-            sample.tmpPressure= Instance.getInstance(context).lastPressure;
+    private SamplePipeline createPipeline(WorkoutType workoutType){
+        SamplePipeline pipeline= new SamplePipeline();
+        addLocationStages(pipeline, workoutType);
+        pipeline.addStage("activity", this::checkRecording);
+        pipeline.addStage("pressure", new PressureStage(Instance.getInstance(context)));
+        pipeline.addStage("persist", this::addToSamples);
+        return pipeline;
+    }
+
+    /**
+     * Adds the stages that filter and thin out the fixes, they don't depend on the recorder's state
+     */
+    static void addLocationStages(SamplePipeline pipeline, WorkoutType workoutType){
+        if(workoutType.locationFilterAcceleration > 0){
+            pipeline.addStage("filter", new LocationFilterStage(new KalmanLocationFilter(workoutType.locationFilterAcceleration)));
+        }
+        pipeline.addStage("dedupe", new MinDistanceStage(workoutType.minDistance));
+    }
+
+    private int checkRecording(SampleRecord record){
+        lastSampleTime= System.currentTimeMillis();
+        if(state == RecordingState.RUNNING && record.time > workout.start){
+            return PipelineStage.CONTINUE;
         }else{
-            sample.tmpPressure= -1;
+            return PipelineStage.DROP;
         }
-        synchronized (samples){
-            samples.add(sample);
+    }
+
+    private int addToSamples(SampleRecord record){
+        if(samples.size() == 2 && !hasBegun){
+            initialClearValues();
+            hasBegun = true; // Do not clear a second time
         }
+        long relativeTime;
+        synchronized (this) {
+            relativeTime= record.time - workout.start - pauseTime;
+        }
+        WorkoutSample sample= createSample(record, relativeTime);
+        samples.add(sample);
+        statistics.add(sample);
+        journal.append(sample, getDuration(), getPauseDuration());
+        workoutRecorderListener.onStatisticsUpdate();
+        return PipelineStage.CONTINUE;
     }
 
-    private void initialClearValues(){
+    static WorkoutSample createSample(SampleRecord record, long relativeTime){
+        WorkoutSample sample= new WorkoutSample();
+        sample.lat= record.lat;
+        sample.lon= record.lon;
+        sample.elevation= record.elevation;
+        sample.speed= record.speed;
+        sample.relativeTime= relativeTime;
+        sample.absoluteTime= record.time;
+        sample.pressure= record.pressure;
+        return sample;
+    }
+
+    private synchronized void initialClearValues(){
         lastResume= System.currentTimeMillis();
         workout.start= System.currentTimeMillis();
         lastPause= 0;
         time= 0;
         pauseTime= 0;
-        this.distance= 0;
+        statistics.reset();
         samples.clear();
+        journal.reset(workout.start);
     }
 
     public int getDistanceInMeters() {
-        return (int)distance;
+        return (int)statistics.getDistance();
     }
 
     private int maxCalories= 0;
     public int getCalories(){
         workout.avgSpeed= getAvgSpeed();
         workout.duration= getDuration();
+        workout.ascent= (float)statistics.getAscent();
         int calories= CalorieCalculator.calculateCalories(workout, Instance.getInstance(context).userPreferences.getUserWeight());
         if(calories > maxCalories){
             maxCalories= calories;
@@ -269,10 +377,10 @@ public class WorkoutRecorder implements LocationListener.LocationChangeListener
      * @return avgSpeed in m/s
      */
     public double getAvgSpeed(){
-        return distance / (double)(getDuration() / 1000);
+        return statistics.getDistance() / (double)(getDuration() / 1000);
     }
 
-    public long getPauseDuration(){
+    public synchronized long getPauseDuration(){
         if(state == RecordingState.PAUSED){
             return pauseTime + (System.currentTimeMillis() - lastPause);
         }else{
@@ -280,7 +388,7 @@ public class WorkoutRecorder implements LocationListener.LocationChangeListener
         }
     }
 
-    public long getDuration(){
+    public synchronized long getDuration(){
         if(state == RecordingState.RUNNING){
             return time + (System.currentTimeMillis() - lastResume);
         }else{
@@ -316,6 +424,11 @@ public class WorkoutRecorder implements LocationListener.LocationChangeListener
     public interface WorkoutRecorderListener {
         void onGPSStateChanged(GpsState oldState, GpsState state);
         void onAutoStop();
+
+        /**
+         * Called on a background thread when a sample was added or the duration changed
+         */
+        void onStatisticsUpdate();
     }
 
 }
@@ -20,7 +20,6 @@
 package de.tadris.fitness.recording;
 
 import android.content.Context;
-import android.hardware.SensorManager;
 import android.util.Log;
 
 import java.io.IOException;
@@ -28,37 +27,80 @@ import java.util.List;
 
 import de.tadris.fitness.Instance;
 import de.tadris.fitness.data.AppDatabase;
+import de.tadris.fitness.data.SampleStorage;
 import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutLocation;
+import de.tadris.fitness.data.WorkoutLocations;
 import de.tadris.fitness.data.WorkoutSample;
 import de.tadris.fitness.util.AltitudeCorrection;
 import de.tadris.fitness.util.CalorieCalculator;
+import de.tadris.fitness.util.ElevationSmoother;
 
 class WorkoutSaver {
 
     private final Context context;
     private final Workout workout;
     private final List<WorkoutSample> samples;
+    private SampleStatistics statistics;
     private final AppDatabase db;
 
+    /**
+     * Id of the {@link de.tadris.fitness.data.Recording} journal that is deleted together with storing the workout, 0 if there is none
+     */
+    private final long recordingId;
+
     public WorkoutSaver(Context context, Workout workout, List<WorkoutSample> samples) {
+        this(context, workout, samples, 0);
+    }
+
+    public WorkoutSaver(Context context, Workout workout, List<WorkoutSample> samples, long recordingId) {
+        this(context, workout, samples, SampleStatistics.of(workout.getWorkoutType(), samples), recordingId);
+    }
+
+    /**
+     * @param statistics statistics of exactly the given samples, e.g. collected while recording
+     */
+    public WorkoutSaver(Context context, Workout workout, List<WorkoutSample> samples, SampleStatistics statistics, long recordingId) {
         this.context = context;
         this.workout = workout;
         this.samples = samples;
+        this.statistics = statistics;
+        this.recordingId = recordingId;
         db= Instance.getInstance(context).db;
     }
 
+    /**
+     * Saver without context and database that can only {@link #calculateValues(AltitudeCorrection, int)}, used by the benchmarks
+     */
+    WorkoutSaver(Workout workout, List<WorkoutSample> samples, SampleStatistics statistics) {
+        this.context = null;
+        this.workout = workout;
+        this.samples = samples;
+        this.statistics = statistics;
+        this.recordingId = 0;
+        this.db = null;
+    }
+
     public void saveWorkout(){
         setIds();
-        clearSamplesWithSameTime();
+        calculateValues(getAltitudeCorrection(), Instance.getInstance(context).userPreferences.getUserWeight());
+        storeInDatabase();
+    }
+
+    /**
+     * Cleans the samples, corrects their elevation and sets the values of the workout
+     *
+     * @param correction geoid correction or null if it isn't available
+     */
+    void calculateValues(AltitudeCorrection correction, int userWeight){
+        cleanSamples();
         setSimpleValues();
         setTopSpeed();
 
-        setElevation();
+        setElevation(correction);
         setAscentAndDescent();
 
-        setCalories();
-
-        storeInDatabase();
+        setCalories(userWeight);
     }
 
     private void setIds(){
@@ -71,139 +113,104 @@ class WorkoutSaver {
         }
     }
 
-    private void clearSamplesWithSameTime(){
-        for(int i= samples.size()-2; i >= 0; i--){
-            WorkoutSample sample= samples.get(i);
-            WorkoutSample lastSample= samples.get(i+1);
-            if(sample.absoluteTime == lastSample.absoluteTime){
-                samples.remove(lastSample);
-                Log.i("WorkoutManager", "Removed samples at " + sample.absoluteTime + " rel: " + sample.relativeTime + "; " + lastSample.relativeTime);
-            }
+    private void cleanSamples(){
+        SampleCleaner cleaner= new SampleCleaner();
+        cleaner.clean(samples);
+        if(cleaner.getDropped() > 0){
+            Log.i("WorkoutSaver", "Removed " + cleaner.getDroppedSameTime() + " samples with same time, " +
+                    cleaner.getDroppedOutOfOrder() + " out of order, " + cleaner.getDroppedZeroDistance() + " without movement");
+        }
+        if(cleaner.getDroppedOutOfOrder() > 0 || cleaner.getDroppedZeroDistance() > 0){
+            // The statistics already skip samples with the same time but not the others
+            statistics= SampleStatistics.of(workout.getWorkoutType(), samples);
         }
     }
 
     private void setSimpleValues(){
-        double length= 0;
-        for(int i= 1; i < samples.size(); i++){
-            double sampleLength= samples.get(i - 1).toLatLong().sphericalDistance(samples.get(i).toLatLong());
-            length+= sampleLength;
-        }
-        workout.length= (int)length;
+        workout.length= (int)statistics.getDistance();
         workout.avgSpeed= ((double) workout.length) / ((double) workout.duration / 1000);
         workout.avgPace= ((double)workout.duration / 1000 / 60) / ((double) workout.length / 1000);
     }
 
     private void setTopSpeed(){
-        double topSpeed= 0;
-        for(WorkoutSample sample : samples){
-            if(sample.speed > topSpeed){
-                topSpeed= sample.speed;
-            }
+        workout.topSpeed= statistics.getTopSpeed();
+    }
+
+    private AltitudeCorrection getAltitudeCorrection() {
+        try {
+            return new AltitudeCorrection(context);
+        } catch (IOException e) {
+            // If we can't read the file, we cannot correct the values
+            e.printStackTrace();
+            return null;
         }
-        workout.topSpeed= topSpeed;
     }
 
-    private void setElevation() {
-        setCorrectedElevation();
+    private void setElevation(AltitudeCorrection correction) {
+        setCorrectedElevation(correction);
         setPressureElevation();
     }
 
-    private void setCorrectedElevation() {
+    private void setCorrectedElevation(AltitudeCorrection correction) {
         // Please see the AltitudeCorrection.java for the reason of this
-        try {
-            int lat = (int) Math.round(samples.get(0).lat);
-            int lon = (int) Math.round(samples.get(0).lon);
-            AltitudeCorrection correction = new AltitudeCorrection(context, lat, lon);
-            for (WorkoutSample sample : samples) {
-                sample.elevation = correction.getHeightOverSeaLevel(sample.elevation);
-            }
-        } catch (IOException e) {
-            // If we can't read the file, we cannot correct the values
-            e.printStackTrace();
+        if (correction != null) {
+            correction.correct(samples);
+            workout.altitudeCorrection = AltitudeCorrection.INTERPOLATED;
+        } else {
+            workout.altitudeCorrection = AltitudeCorrection.NONE;
         }
     }
 
     private void setPressureElevation() {
-        boolean pressureDataAvailable= samples.get(0).tmpPressure != -1;
-
-        if(!pressureDataAvailable){
+        if(!statistics.hasPressure()){
             // Because pressure data isn't available we just use the use GPS elevation
             // in WorkoutSample.elevation which was already set
             return;
         }
 
         double avgElevation= getAverageElevation();
-        double avgPressure=  getAveragePressure();
+        double avgPressure=  statistics.getAveragePressure();
 
         for(int i= 0; i < samples.size(); i++){
             WorkoutSample sample= samples.get(i);
 
             // Altitude Difference to Average Elevation in meters
-            float altitude_difference =
-                    SensorManager.getAltitude(SensorManager.PRESSURE_STANDARD_ATMOSPHERE, sample.tmpPressure) -
-                            SensorManager.getAltitude(SensorManager.PRESSURE_STANDARD_ATMOSPHERE, (float) avgPressure);
+            double altitude_difference =
+                    SampleStatistics.getAltitude(sample.pressure) - SampleStatistics.getAltitude(avgPressure);
             sample.elevation= avgElevation + altitude_difference;
         }
     }
 
     private double getAverageElevation(){
-        return getAverageElevation(samples);
-    }
-
-    private double getAverageElevation(List<WorkoutSample> samples){
-        double elevationSum= 0; // Sum of elevation
+        // The correction differs between the samples, so the average is taken from the corrected samples
+        double elevationSum= 0;
         for(WorkoutSample sample : samples){
             elevationSum+= sample.elevation;
         }
-
         return elevationSum / samples.size();
     }
 
-    private double getAveragePressure(){
-        double pressureSum= 0;
-        for(WorkoutSample sample : samples){
-            pressureSum+= sample.tmpPressure;
-        }
-        return pressureSum  / samples.size();
-    }
-
     private void setAscentAndDescent(){
-        workout.ascent = 0;
-        workout.descent = 0;
-
-        // First calculate a floating average to eliminate pressure noise to influence our ascent/descent
-        int range = 7;
-        for(int i= 0; i < samples.size(); i++){
-            int minIndex = Math.max(i - range, 0);
-            int maxIndex = Math.min(i + range, samples.size() - 1);
-            samples.get(i).tmpElevation = getAverageElevation(samples.subList(minIndex, maxIndex));
-        }
-
-        // Now sum up the ascent/descent
-        for(int i= 0; i < samples.size(); i++) {
-            WorkoutSample sample = samples.get(i);
-            sample.elevation= sample.tmpElevation;
-            if(i >= 1){
-                WorkoutSample lastSample= samples.get(i-1);
-                double diff= sample.elevation - lastSample.elevation;
-                if(diff > 0){
-                    // If this sample is higher than the last one, add difference to ascent
-                    workout.ascent += diff;
-                }else{
-                    // If this sample is lower than the last one, add difference to descent
-                    workout.descent += Math.abs(diff);
-                }
-            }
-        }
-
+        // Smooth the elevation to eliminate GPS and pressure noise before summing up the climb
+        ElevationSmoother.Climb climb= ElevationSmoother.forWorkoutType(workout.getWorkoutType()).smooth(samples);
+        workout.ascent = (float) climb.ascent;
+        workout.descent = (float) climb.descent;
     }
 
-    private void setCalories() {
+    private void setCalories(int userWeight) {
         // Ascent has to be set previously
-        workout.calorie = CalorieCalculator.calculateCalories(workout, Instance.getInstance(context).userPreferences.getUserWeight());
+        workout.calorie = CalorieCalculator.calculateCalories(workout, userWeight);
     }
 
     private void storeInDatabase(){
-        db.workoutDao().insertWorkoutAndSamples(workout, samples.toArray(new WorkoutSample[0]));
+        db.runInTransaction(() -> {
+            db.workoutDao().insertWorkout(workout);
+            SampleStorage.setSamples(db, workout.id, samples.toArray(new WorkoutSample[0]));
+            WorkoutLocations.setLocation(db, workout.id, WorkoutLocation.of(samples));
+            if(recordingId != 0){
+                // The workout is safe now, the journal isn't needed anymore
+                db.recordingDao().deleteRecording(recordingId);
+            }
+        });
     }
 }
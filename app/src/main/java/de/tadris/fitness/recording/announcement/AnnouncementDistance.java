@@ -43,7 +43,11 @@ public class AnnouncementDistance extends Announcement {
 
     @Override
     String getSpoken(WorkoutRecorder recorder) {
-        final String distance = UnitUtils.getDistance(recorder.getDistanceInMeters());
+        return getSpoken(recorder.getDistanceInMeters());
+    }
+
+    String getSpoken(int distanceInMeters) {
+        final String distance = UnitUtils.getDistance(distanceInMeters);
         return getString(R.string.workoutDistance) + ": " + distance + ".";
     }
 }
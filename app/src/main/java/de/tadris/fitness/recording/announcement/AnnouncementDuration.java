@@ -42,7 +42,11 @@ public class AnnouncementDuration extends Announcement {
 
     @Override
     String getSpoken(WorkoutRecorder recorder) {
-        return getString(R.string.workoutDuration) + ": " + getSpokenTime(recorder.getDuration()) + ".";
+        return getSpoken(recorder.getDuration());
+    }
+
+    String getSpoken(long duration) {
+        return getString(R.string.workoutDuration) + ": " + getSpokenTime(duration) + ".";
     }
 
     private String getSpokenTime(long duration) {
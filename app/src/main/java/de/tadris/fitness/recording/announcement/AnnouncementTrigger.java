@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording.announcement;
+
+/**
+ * Keeps the next duration and distance at which the periodic announcements are due.
+ *
+ * Thresholds are multiples of the configured intervals and are only recomputed after they
+ * were crossed, so checking a statistics update is just two comparisons.
+ */
+public class AnnouncementTrigger {
+
+    public static final int NONE = 0;
+    public static final int TIME = 1;
+    public static final int DISTANCE = 2;
+
+    private final long intervalTime;
+    private final int intervalDistance;
+
+    private long nextTime;
+    private int nextDistance;
+
+    /**
+     * @param intervalTime     interval in milliseconds, 0 to disable
+     * @param intervalDistance interval in meters, 0 to disable
+     */
+    public AnnouncementTrigger(long intervalTime, int intervalDistance) {
+        this.intervalTime = intervalTime;
+        this.intervalDistance = intervalDistance;
+        advance(0, 0);
+    }
+
+    /**
+     * @return the crossed thresholds as combination of {@link #TIME} and {@link #DISTANCE}
+     */
+    public int check(long duration, int distance) {
+        int crossed = NONE;
+        if (duration >= nextTime) {
+            crossed |= TIME;
+        }
+        if (distance >= nextDistance) {
+            crossed |= DISTANCE;
+        }
+        return crossed;
+    }
+
+    /**
+     * Moves the thresholds behind the given values
+     */
+    public void advance(long duration, int distance) {
+        nextTime = intervalTime > 0 ? (duration / intervalTime + 1) * intervalTime : Long.MAX_VALUE;
+        nextDistance = intervalDistance > 0 ? (distance / intervalDistance + 1) * intervalDistance : Integer.MAX_VALUE;
+    }
+
+    public boolean hasTimeThreshold() {
+        return nextTime != Long.MAX_VALUE;
+    }
+
+    public boolean hasDistanceThreshold() {
+        return nextDistance != Integer.MAX_VALUE;
+    }
+
+    public long getNextTime() {
+        return nextTime;
+    }
+
+    public int getNextDistance() {
+        return nextDistance;
+    }
+
+}
@@ -23,6 +23,7 @@ import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothHeadset;
 import android.content.Context;
 import android.media.AudioManager;
+import android.os.SystemClock;
 import android.speech.tts.TextToSpeech;
 import android.speech.tts.UtteranceProgressListener;
 import android.util.Log;
@@ -37,16 +38,28 @@ import de.tadris.fitness.util.unit.UnitUtils;
 public class VoiceAnnouncements {
 
     private TextToSpeech textToSpeech;
-    private boolean ttsAvailable;
+    private volatile boolean ttsAvailable;
+    /**
+     * Set by {@link #destroy()}, the recorder may still deliver updates from its pipeline afterwards
+     */
+    private boolean destroyed = false;
     private VoiceAnnouncementCallback callback;
     private final AnnouncementManager manager;
 
-    private long lastSpokenUpdateTime = 0;
-    private int lastSpokenUpdateDistance = 0;
+    private final AnnouncementTrigger trigger;
+
+    /**
+     * Texts for the next time and distance threshold, rendered after the previous announcement
+     */
+    private String preparedDurationText;
+    private String preparedDistanceText;
 
     private final AnnouncementMode currentMode;
-    private final long intervalTime;
-    private final int intervalInMeters;
+
+    // Time from crossing a threshold until the announcement is passed to the TTS engine
+    private long latencyCount = 0;
+    private long latencyTotal = 0;
+    private long latencyMax = 0;
 
     private final AudioManager audioManager;
 
@@ -55,8 +68,9 @@ public class VoiceAnnouncements {
         UserPreferences prefs = Instance.getInstance(context).userPreferences;
         textToSpeech = new TextToSpeech(context, this::ttsReady);
 
-        this.intervalTime = 60 * 1000 * prefs.getSpokenUpdateTimePeriod();
-        this.intervalInMeters = (int) (1000.0 / UnitUtils.CHOSEN_SYSTEM.getDistanceFromKilometers(1) * prefs.getSpokenUpdateDistancePeriod());
+        long intervalTime = 60 * 1000 * prefs.getSpokenUpdateTimePeriod();
+        int intervalInMeters = (int) (1000.0 / UnitUtils.CHOSEN_SYSTEM.getDistanceFromKilometers(1) * prefs.getSpokenUpdateDistancePeriod());
+        this.trigger = new AnnouncementTrigger(intervalTime, intervalInMeters);
 
         this.manager = new AnnouncementManager(context);
         this.audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
@@ -65,64 +79,108 @@ public class VoiceAnnouncements {
     }
 
     private void ttsReady(int status) {
-        ttsAvailable = status == TextToSpeech.SUCCESS && textToSpeech.setLanguage(Locale.getDefault()) >= 0;
-        if (ttsAvailable) {
-            textToSpeech.setOnUtteranceProgressListener(new TextToSpeechListener());
+        synchronized (this) {
+            if (destroyed) {
+                return;
+            }
+            ttsAvailable = status == TextToSpeech.SUCCESS && textToSpeech.setLanguage(Locale.getDefault()) >= 0;
+            if (ttsAvailable) {
+                textToSpeech.setOnUtteranceProgressListener(new TextToSpeechListener());
+                prepareNextTexts();
+            }
         }
         callback.onVoiceAnnouncementIsReady(ttsAvailable);
     }
 
-    public void check(WorkoutRecorder recorder) {
+    /**
+     * Called by the recorder whenever its statistics changed. Speaks the announcements
+     * if a time or distance threshold was crossed.
+     */
+    public synchronized void onStatisticsUpdate(WorkoutRecorder recorder) {
         if (!ttsAvailable) {
             return;
         } // Cannot speak
 
-        boolean shouldSpeak = false;
-
-        if (intervalTime != 0 && recorder.getDuration() - lastSpokenUpdateTime > intervalTime) {
-            shouldSpeak = true;
-        }
-        if (intervalInMeters != 0 && recorder.getDistanceInMeters() - lastSpokenUpdateDistance > intervalInMeters) {
-            shouldSpeak = true;
+        long duration = recorder.getDuration();
+        int distance = recorder.getDistanceInMeters();
+        int crossed = trigger.check(duration, distance);
+        if (crossed == AnnouncementTrigger.NONE) {
+            return;
         }
 
-        if (shouldSpeak) {
-            speak(recorder);
+        long crossedAt = SystemClock.elapsedRealtime();
+        if ((crossed & AnnouncementTrigger.TIME) != 0) {
+            // The time threshold was already crossed between two updates
+            crossedAt -= duration - trigger.getNextTime();
         }
+        speak(recorder, crossed, crossedAt);
+
+        trigger.advance(duration, distance);
+        prepareNextTexts();
     }
 
-    private void speak(WorkoutRecorder recorder) {
+    private void prepareNextTexts() {
+        preparedDurationText = null;
+        preparedDistanceText = null;
         for (Announcement announcement : manager.getAnnouncements()) {
-            speak(recorder, announcement);
+            if (announcement instanceof AnnouncementDuration && trigger.hasTimeThreshold()) {
+                preparedDurationText = ((AnnouncementDuration) announcement).getSpoken(trigger.getNextTime());
+            } else if (announcement instanceof AnnouncementDistance && trigger.hasDistanceThreshold()) {
+                preparedDistanceText = ((AnnouncementDistance) announcement).getSpoken(trigger.getNextDistance());
+            }
         }
+    }
 
-        lastSpokenUpdateTime = recorder.getDuration();
-        lastSpokenUpdateDistance = recorder.getDistanceInMeters();
+    private void speak(WorkoutRecorder recorder, int crossed, long crossedAt) {
+        StringBuilder text = new StringBuilder();
+        for (Announcement announcement : manager.getAnnouncements()) {
+            if (!announcement.isEnabled()) {
+                continue;
+            }
+            String spoken = getSpoken(recorder, announcement, crossed);
+            if (!spoken.equals("")) {
+                text.append(spoken).append(" ");
+            }
+        }
+        if (text.length() > 0 && speak(text.toString().trim())) {
+            recordLatency(SystemClock.elapsedRealtime() - crossedAt);
+        }
     }
 
-    private void speak(WorkoutRecorder recorder, Announcement announcement) {
-        if (!announcement.isEnabled()) {
-            return;
+    private String getSpoken(WorkoutRecorder recorder, Announcement announcement, int crossed) {
+        // Prepared texts belong to the threshold, so they can only be used for the one that was crossed
+        if (announcement instanceof AnnouncementDuration && crossed == AnnouncementTrigger.TIME && preparedDurationText != null) {
+            return preparedDurationText;
         }
-        String text = announcement.getSpoken(recorder);
-        if (!text.equals("")) {
-            speak(text);
+        if (announcement instanceof AnnouncementDistance && crossed == AnnouncementTrigger.DISTANCE && preparedDistanceText != null) {
+            return preparedDistanceText;
         }
+        return announcement.getSpoken(recorder);
+    }
+
+    private void recordLatency(long latency) {
+        latencyCount++;
+        latencyTotal += latency;
+        latencyMax = Math.max(latencyMax, latency);
     }
 
     private int speakId = 1;
 
-    public void speak(String text) {
+    /**
+     * @return true if the text was passed to the TTS engine
+     */
+    public synchronized boolean speak(String text) {
         if (!ttsAvailable) {
             // Cannot speak
-            return;
+            return false;
         }
         if (currentMode == AnnouncementMode.HEADPHONES && !isHeadsetOn()) {
             // Not allowed to speak
-            return;
+            return false;
         }
         Log.d("Recorder", "TTS speaks: " + text);
         textToSpeech.speak(text, TextToSpeech.QUEUE_ADD, null, "announcement" + (++speakId));
+        return true;
     }
 
     private boolean isHeadsetOn() {
@@ -133,7 +191,15 @@ public class VoiceAnnouncements {
         return audioManager.isWiredHeadsetOn() || bluetoothHeadsetConnected;
     }
 
-    public void destroy() {
+    /**
+     * Shuts down the TTS engine, later updates and texts are ignored
+     */
+    public synchronized void destroy() {
+        if (latencyCount > 0) {
+            Log.i("Recorder", "Announcements: " + latencyCount + ", avg latency " + latencyTotal / latencyCount + "ms, max " + latencyMax + "ms");
+        }
+        destroyed = true;
+        ttsAvailable = false;
         textToSpeech.shutdown();
     }
 
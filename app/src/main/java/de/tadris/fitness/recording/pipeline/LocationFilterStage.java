@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording.pipeline;
+
+import de.tadris.fitness.recording.LocationFilter;
+
+/**
+ * Replaces the position of a record with the output of a {@link LocationFilter}
+ */
+public class LocationFilterStage implements PipelineStage {
+
+    private final LocationFilter filter;
+
+    public LocationFilterStage(LocationFilter filter) {
+        this.filter = filter;
+    }
+
+    @Override
+    public int process(SampleRecord record) {
+        filter.update(record.lat, record.lon, record.accuracy, record.time);
+        record.lat = filter.getLatitude();
+        record.lon = filter.getLongitude();
+        return CONTINUE;
+    }
+
+}
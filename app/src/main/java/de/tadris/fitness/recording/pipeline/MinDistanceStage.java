@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording.pipeline;
+
+import de.tadris.fitness.recording.SampleStatistics;
+
+/**
+ * Drops records that are too close to the last record it passed on. It compares against its own
+ * last record instead of the stored samples because a record passed on may still wait at a
+ * later stage (e.g. for pressure) while the next ones arrive.
+ */
+public class MinDistanceStage implements PipelineStage {
+
+    private final int minDistance;
+    private SampleRecord last;
+
+    public MinDistanceStage(int minDistance) {
+        this.minDistance = minDistance;
+    }
+
+    @Override
+    public int process(SampleRecord record) {
+        if (last != null) {
+            double distance = SampleStatistics.getDistance(last.lat, last.lon, record.lat, record.lon);
+            long timediff = last.time - record.time;
+            if (distance < minDistance && timediff < 500) {
+                return DROP;
+            }
+        }
+        last = record;
+        return CONTINUE;
+    }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording.pipeline;
+
+/**
+ * One processing step of the {@link SamplePipeline}
+ */
+public interface PipelineStage {
+
+    /**
+     * Pass the record on to the next stage
+     */
+    int CONTINUE = 0;
+
+    /**
+     * Discard the record
+     */
+    int DROP = 1;
+
+    /**
+     * The record cannot be processed yet (e.g. because sensor data is missing). It and all
+     * following records are held back at this stage and it is called again later.
+     */
+    int WAIT = 2;
+
+    /**
+     * @return {@link #CONTINUE}, {@link #DROP} or {@link #WAIT}
+     */
+    int process(SampleRecord record);
+
+    /**
+     * Called when the pipeline is finished. Afterwards the stage must not return {@link #WAIT} anymore.
+     */
+    default void finish() {
+    }
+
+}
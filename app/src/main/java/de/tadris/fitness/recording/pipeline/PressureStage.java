@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording.pipeline;
+
+import android.os.SystemClock;
+
+import de.tadris.fitness.Instance;
+import de.tadris.fitness.recording.PressureHistory;
+
+/**
+ * Sets the pressure of a record from the barometer readings around its time.
+ * Readings are delivered in batches and can arrive after the fix, so records wait until
+ * a later reading is available.
+ */
+public class PressureStage implements PipelineStage {
+
+    /**
+     * Records don't wait longer than this for readings, e.g. if the sensor stopped delivering
+     */
+    private static final long MAX_WAIT_NANOS = 10L * 1000 * 1000 * 1000;
+
+    private final Instance instance;
+    private boolean finished = false;
+
+    public PressureStage(Instance instance) {
+        this.instance = instance;
+    }
+
+    @Override
+    public int process(SampleRecord record) {
+        if (!instance.isPressureAvailable()) {
+            return CONTINUE;
+        }
+        PressureHistory history = instance.pressureHistory;
+        boolean waitedTooLong = SystemClock.elapsedRealtimeNanos() - record.elapsedRealtimeNanos > MAX_WAIT_NANOS;
+        if (!finished && !waitedTooLong && record.elapsedRealtimeNanos > history.getLatestTime()) {
+            return WAIT;
+        }
+        record.pressure = history.getPressureAt(record.elapsedRealtimeNanos);
+        return CONTINUE;
+    }
+
+    @Override
+    public void finish() {
+        finished = true;
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording.pipeline;
+
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ordered chain of {@link PipelineStage}s that processes location fixes on a worker thread.
+ *
+ * Records are submitted from the GPS callback and processed in batches, so the callback
+ * returns immediately. Records leave the pipeline in the order they were submitted: a record
+ * that waits at a stage holds back the following ones at that stage, the stages before still
+ * process them right away (e.g. the activity check keeps seeing fixes while one waits for pressure).
+ * The time spent in each stage is measured, see {@link #getStatistics()}.
+ */
+public class SamplePipeline {
+
+    private static final String TAG = "SamplePipeline";
+
+    private final List<String> names = new ArrayList<>();
+    private final List<PipelineStage> stages = new ArrayList<>();
+    private long[] stageTime;
+    private long[] stageCount;
+    private long[] stageDrops;
+
+    private final Queue<SampleRecord> incoming = new ConcurrentLinkedQueue<>();
+    private final Queue<SampleRecord> waiting = new ArrayDeque<>(); // Only accessed by the worker
+    private final AtomicBoolean batchScheduled = new AtomicBoolean(false);
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, TAG));
+
+    /**
+     * Stages have to be added before the first record is submitted
+     */
+    public SamplePipeline addStage(String name, PipelineStage stage) {
+        names.add(name);
+        stages.add(stage);
+        stageTime = new long[stages.size()];
+        stageCount = new long[stages.size()];
+        stageDrops = new long[stages.size()];
+        return this;
+    }
+
+    public void submit(SampleRecord record) {
+        incoming.add(record);
+        scheduleBatch();
+    }
+
+    /**
+     * Retries records that are waiting for a stage
+     */
+    public void poll() {
+        scheduleBatch();
+    }
+
+    private void scheduleBatch() {
+        if (!worker.isShutdown() && batchScheduled.compareAndSet(false, true)) {
+            worker.execute(this::processBatch);
+        }
+    }
+
+    private void processBatch() {
+        batchScheduled.set(false);
+        // A record may not pass the stage at which the record before it waits
+        int limit = stages.size();
+        Iterator<SampleRecord> iterator = waiting.iterator();
+        while (iterator.hasNext()) {
+            SampleRecord record = iterator.next();
+            if (run(record, limit)) {
+                iterator.remove();
+            } else {
+                limit = record.stage;
+            }
+        }
+        SampleRecord record;
+        while ((record = incoming.poll()) != null) {
+            if (!run(record, limit)) {
+                waiting.add(record);
+                limit = record.stage;
+            }
+        }
+    }
+
+    /**
+     * Runs the record through the stages before the limit
+     *
+     * @return true if the record left the pipeline, false if it waits at a stage or at the limit
+     */
+    private boolean run(SampleRecord record, int limit) {
+        for (int i = record.stage; i < limit; i++) {
+            long start = System.nanoTime();
+            int result = stages.get(i).process(record);
+            stageTime[i] += System.nanoTime() - start;
+            if (result == PipelineStage.WAIT) {
+                record.stage = i;
+                return false;
+            }
+            stageCount[i]++;
+            if (result == PipelineStage.DROP) {
+                stageDrops[i]++;
+                return true;
+            }
+        }
+        record.stage = limit;
+        return limit == stages.size();
+    }
+
+    /**
+     * Processes all remaining records and stops the worker without waiting for it
+     *
+     * @param onFinished runs on the worker after the last record was processed
+     */
+    public void finish(Runnable onFinished) {
+        if (worker.isShutdown()) {
+            onFinished.run();
+            return;
+        }
+        worker.execute(() -> {
+            try {
+                for (PipelineStage stage : stages) {
+                    stage.finish();
+                }
+                processBatch();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Finishing pipeline failed", e);
+            } finally {
+                onFinished.run();
+            }
+        });
+        worker.shutdown();
+    }
+
+    /**
+     * @return number of records, drops and the time spent in each stage, one line per stage
+     */
+    public String getStatistics() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < stages.size(); i++) {
+            long average = stageCount[i] > 0 ? stageTime[i] / stageCount[i] : 0;
+            builder.append(names.get(i)).append(": ").append(stageCount[i]).append(" records, ")
+                    .append(stageDrops[i]).append(" dropped, ").append(stageTime[i] / 1000).append("us total, ")
+                    .append(average / 1000).append("us avg\n");
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording.pipeline;
+
+import android.location.Location;
+
+/**
+ * A location fix on its way through the {@link SamplePipeline}. Stages may modify the values.
+ */
+public class SampleRecord {
+
+    public double lat;
+    public double lon;
+    public double elevation;
+    public float speed;
+
+    /**
+     * Estimated horizontal accuracy in meters
+     */
+    public float accuracy;
+
+    /**
+     * Time of the fix in milliseconds since epoch
+     */
+    public long time;
+
+    /**
+     * Time of the fix in the elapsed realtime base, used to match sensor readings
+     */
+    public long elapsedRealtimeNanos;
+
+    /**
+     * Barometric pressure in hPa or -1 if unknown
+     */
+    public float pressure = -1;
+
+    /**
+     * Index of the stage the record is waiting at
+     */
+    int stage = 0;
+
+    public static SampleRecord fromLocation(Location location) {
+        SampleRecord record = new SampleRecord();
+        record.lat = location.getLatitude();
+        record.lon = location.getLongitude();
+        record.elevation = location.getAltitude();
+        record.speed = location.getSpeed();
+        record.accuracy = location.getAccuracy();
+        record.time = location.getTime();
+        record.elapsedRealtimeNanos = location.getElapsedRealtimeNanos();
+        return record;
+    }
+
+}
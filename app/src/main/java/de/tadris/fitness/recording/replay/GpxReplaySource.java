@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording.replay;
+
+import android.annotation.SuppressLint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import de.tadris.fitness.recording.SampleStatistics;
+import de.tadris.fitness.recording.pipeline.SampleRecord;
+
+/**
+ * Streams the track points of a GPX file, e.g. one written by the GpxExporter.
+ * The file is read point by point, so long tracks don't have to fit into memory.
+ */
+public class GpxReplaySource implements ReplaySource {
+
+    private static final float DEFAULT_ACCURACY = 5;
+
+    @SuppressLint("SimpleDateFormat")
+    private final SimpleDateFormat[] formats = {
+            new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX"),
+            new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX")
+    };
+
+    private final InputStream input;
+    private final XMLStreamReader reader;
+    private SampleRecord last;
+
+    public GpxReplaySource(InputStream input) throws IOException {
+        this.input = input;
+        try {
+            this.reader = XMLInputFactory.newInstance().createXMLStreamReader(input);
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public SampleRecord next() throws IOException {
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("trkpt")) {
+                    SampleRecord record = readTrackPoint();
+                    last = record;
+                    return record;
+                }
+            }
+            return null;
+        } catch (XMLStreamException | NumberFormatException e) {
+            throw new IOException("Invalid GPX file", e);
+        }
+    }
+
+    private SampleRecord readTrackPoint() throws XMLStreamException, IOException {
+        SampleRecord record = new SampleRecord();
+        record.lat = Double.parseDouble(reader.getAttributeValue(null, "lat"));
+        record.lon = Double.parseDouble(reader.getAttributeValue(null, "lon"));
+        record.accuracy = DEFAULT_ACCURACY;
+        boolean hasSpeed = false;
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "ele":
+                        record.elevation = Double.parseDouble(reader.getElementText().trim());
+                        break;
+                    case "time":
+                        record.time = parseTime(reader.getElementText().trim());
+                        break;
+                    case "speed":
+                        record.speed = Float.parseFloat(reader.getElementText().trim());
+                        hasSpeed = true;
+                        break;
+                    default:
+                        depth++;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+        if (!hasSpeed) {
+            record.speed = getSpeedFromLast(record);
+        }
+        // GPX has no monotonic clock, the fix time is the best replacement
+        record.elapsedRealtimeNanos = record.time * 1000000;
+        return record;
+    }
+
+    private float getSpeedFromLast(SampleRecord record) {
+        if (last == null || record.time <= last.time) {
+            return 0;
+        }
+        double distance = SampleStatistics.getDistance(last.lat, last.lon, record.lat, record.lon);
+        return (float) (distance / ((record.time - last.time) / 1000d));
+    }
+
+    private long parseTime(String text) throws IOException {
+        for (SimpleDateFormat format : formats) {
+            try {
+                return format.parse(text).getTime();
+            } catch (ParseException ignored) {
+                // Try next format
+            }
+        }
+        throw new IOException("Cannot parse time " + text);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            input.close();
+        }
+    }
+
+}
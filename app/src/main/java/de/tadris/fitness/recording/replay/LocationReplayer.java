@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording.replay;
+
+import android.location.Location;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.IOException;
+
+import de.tadris.fitness.recording.LocationEventBus;
+import de.tadris.fitness.recording.pipeline.SampleRecord;
+
+/**
+ * Feeds the fixes of a {@link ReplaySource} to a listener in real time, at a multiple of
+ * real time or as fast as possible. Used to test the recording without GPS.
+ */
+public class LocationReplayer {
+
+    private static final String TAG = "LocationReplayer";
+
+    public static final double AS_FAST_AS_POSSIBLE = 0;
+
+    private final ReplaySource source;
+    private final double speedFactor;
+    private final Listener listener;
+
+    private volatile boolean running = false;
+    private Thread thread;
+
+    /**
+     * @param speedFactor 1 for real time, 10 for ten times faster or {@link #AS_FAST_AS_POSSIBLE}
+     */
+    public LocationReplayer(ReplaySource source, double speedFactor, Listener listener) {
+        this.source = source;
+        this.speedFactor = speedFactor;
+        this.listener = listener;
+    }
+
+    /**
+     * Replays on a new thread
+     */
+    public void start() {
+        thread = new Thread(() -> {
+            try {
+                long count = replay();
+                Log.i(TAG, "Replayed " + count + " fixes");
+            } catch (IOException e) {
+                Log.e(TAG, "Replay failed", e);
+            } catch (InterruptedException ignored) {
+                // Stopped
+            }
+        }, TAG);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Replays on the calling thread until the source is exhausted or {@link #stop()} is called
+     *
+     * @return number of replayed fixes
+     */
+    public long replay() throws IOException, InterruptedException {
+        running = true;
+        long count = 0;
+        long firstTime = 0;
+        long startNanos = System.nanoTime();
+        try {
+            SampleRecord record;
+            while (running && (record = source.next()) != null) {
+                if (count == 0) {
+                    firstTime = record.time;
+                }
+                if (speedFactor > 0) {
+                    long wait = startNanos + (long) ((record.time - firstTime) * 1000000 / speedFactor) - System.nanoTime();
+                    if (wait > 0) {
+                        Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+                    }
+                }
+                listener.onRecord(record);
+                count++;
+            }
+        } finally {
+            running = false;
+            source.close();
+        }
+        return count;
+    }
+
+    /**
+     * @return a listener that dispatches the fixes like the GPS receiver does. The fixes get the
+     * current time, so the recording sees them as live fixes.
+     */
+    public static Listener toEventBus(LocationEventBus eventBus) {
+        return record -> {
+            Location location = new Location("replay");
+            location.setLatitude(record.lat);
+            location.setLongitude(record.lon);
+            location.setAltitude(record.elevation);
+            location.setSpeed(record.speed);
+            location.setAccuracy(record.accuracy);
+            location.setTime(System.currentTimeMillis());
+            location.setElapsedRealtimeNanos(SystemClock.elapsedRealtimeNanos());
+            eventBus.dispatch(location);
+        };
+    }
+
+    public interface Listener {
+        void onRecord(SampleRecord record);
+    }
+
+}
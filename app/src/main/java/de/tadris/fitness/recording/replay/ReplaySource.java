@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import de.tadris.fitness.recording.pipeline.SampleRecord;
+
+/**
+ * Source of recorded or generated location fixes that can be replayed by a {@link LocationReplayer}
+ */
+public interface ReplaySource extends Closeable {
+
+    /**
+     * @return the next fix or null if there are no more fixes
+     */
+    SampleRecord next() throws IOException;
+
+}
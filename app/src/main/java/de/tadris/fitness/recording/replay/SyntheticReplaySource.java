@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording.replay;
+
+import java.util.Random;
+
+import de.tadris.fitness.recording.pipeline.SampleRecord;
+
+/**
+ * Generates a plausible track of any length without a GPX file.
+ * The same seed always generates the same track.
+ */
+public class SyntheticReplaySource implements ReplaySource {
+
+    private static final double METERS_PER_DEGREE = 111320;
+
+    private final Random random;
+    private final long end;
+    private final long interval;
+    private final double speed;
+
+    private long time;
+    private double lat;
+    private double lon;
+    private double heading;
+
+    /**
+     * @param start    time of the first fix in milliseconds since epoch
+     * @param duration length of the track in milliseconds
+     * @param interval time between two fixes in milliseconds
+     * @param speed    average speed in m/s
+     */
+    public SyntheticReplaySource(long start, long duration, long interval, double speed, long seed) {
+        this.random = new Random(seed);
+        this.time = start;
+        this.end = start + duration;
+        this.interval = interval;
+        this.speed = speed;
+        this.lat = 52.52;
+        this.lon = 13.40;
+        this.heading = random.nextDouble() * 2 * Math.PI;
+    }
+
+    @Override
+    public SampleRecord next() {
+        if (time > end) {
+            return null;
+        }
+        SampleRecord record = new SampleRecord();
+        record.lat = lat;
+        record.lon = lon;
+        record.elevation = 50 + 30 * Math.sin(time / 600000d) + random.nextGaussian();
+        record.speed = (float) Math.max(0, speed + random.nextGaussian() * speed * 0.1);
+        record.accuracy = (float) (3 + random.nextDouble() * 5);
+        record.time = time;
+        record.elapsedRealtimeNanos = time * 1000000;
+
+        double step = record.speed * interval / 1000d;
+        heading += random.nextGaussian() * 0.1;
+        lat += Math.cos(heading) * step / METERS_PER_DEGREE;
+        lon += Math.sin(heading) * step / (METERS_PER_DEGREE * Math.cos(Math.toRadians(lat)));
+        time += interval;
+        return record;
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
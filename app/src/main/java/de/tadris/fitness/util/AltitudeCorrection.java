@@ -21,14 +21,10 @@ package de.tadris.fitness.util;
 
 import android.content.Context;
 
-import org.apache.commons.io.IOUtils;
-
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 
-import de.tadris.fitness.R;
+import de.tadris.fitness.data.WorkoutSample;
 
 /**
  * This class has the task to correct the altitude.
@@ -40,37 +36,72 @@ import de.tadris.fitness.R;
  * but we want the height over the sea level. That's why we have to correct the height.
  * Luckily I found a file containing the corrections for all places around the world.
  * <p>
- * The geoids.csv is from https://github.com/vectorstofinal/geoid_heights licensed under MIT
+ * The geoids.csv is from https://github.com/vectorstofinal/geoid_heights licensed under MIT,
+ * it is compiled into a {@link GeoidGrid} at build time.
  */
 public class AltitudeCorrection {
 
-    private Context context;
-    private int latitude, longitude;
-    private double offset; // Basically how much higher the sea-level than the ellipsoid is
+    /**
+     * The elevation isn't corrected because the geoid grid couldn't be read
+     */
+    public static final int NONE = -1;
+
+    /**
+     * One offset for all samples, see {@link #getLegacyOffset(WorkoutSample)}
+     */
+    public static final int LEGACY = 0;
+
+    /**
+     * Every sample is corrected with the geoid height at its position
+     */
+    public static final int INTERPOLATED = 1;
+
+    private final GeoidGrid grid;
+
+    public AltitudeCorrection(Context context) throws IOException {
+        this(GeoidGrid.getInstance(context));
+    }
+
+    public AltitudeCorrection(GeoidGrid grid) {
+        this.grid = grid;
+    }
+
+    public double getHeightOverSeaLevel(double latitude, double longitude, double heightOverEllipsoid) {
+        // The geoid height is basically how much higher the sea-level than the ellipsoid is
+        return heightOverEllipsoid - grid.getHeight(latitude, longitude);
+    }
 
-    public AltitudeCorrection(Context context, int latitude, int longitude) throws IOException {
-        this.context = context;
-        this.latitude = latitude;
-        this.longitude = longitude;
-        findOffset();
+    /**
+     * Corrects the elevation of every position in place with the geoid height at that position
+     */
+    public void correct(double[] latitude, double[] longitude, double[] elevation) {
+        for (int i = 0; i < elevation.length; i++) {
+            elevation[i] -= grid.getHeight(latitude[i], longitude[i]);
+        }
     }
 
-    private void findOffset() throws IOException {
-        InputStream inputStream = context.getResources().openRawResource(R.raw.geoids);
-        List<String> list = IOUtils.readLines(inputStream, StandardCharsets.UTF_8);
-        for (String line : list) {
-            String[] data = line.split(",");
-            int lat = Integer.parseInt(data[0]);
-            int lon = Integer.parseInt(data[1]);
-            double offset = Double.parseDouble(data[2]);
-            if (lat == this.latitude && lon == this.longitude) {
-                this.offset = offset;
-                return;
-            }
+    public void correct(List<WorkoutSample> samples) {
+        int count = samples.size();
+        double[] latitude = new double[count];
+        double[] longitude = new double[count];
+        double[] elevation = new double[count];
+        for (int i = 0; i < count; i++) {
+            WorkoutSample sample = samples.get(i);
+            latitude[i] = sample.lat;
+            longitude[i] = sample.lon;
+            elevation[i] = sample.elevation;
+        }
+        correct(latitude, longitude, elevation);
+        for (int i = 0; i < count; i++) {
+            samples.get(i).elevation = elevation[i];
         }
     }
 
-    public double getHeightOverSeaLevel(double heightOverEllipsoid) {
-        return heightOverEllipsoid - offset;
+    /**
+     * Offset that was used for all samples of workouts saved before the correction was
+     * interpolated: the geoid height at the first sample rounded to full degrees
+     */
+    public double getLegacyOffset(WorkoutSample firstSample) {
+        return grid.getHeight((int) Math.round(firstSample.lat), (int) Math.round(firstSample.lon));
     }
 }
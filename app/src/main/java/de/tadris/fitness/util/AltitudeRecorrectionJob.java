@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.util;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.IOException;
+
+import de.tadris.fitness.Instance;
+import de.tadris.fitness.data.AppDatabase;
+import de.tadris.fitness.data.SampleStorage;
+import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutSample;
+
+/**
+ * Replaces the altitude correction of workouts that were saved with a single offset for all samples
+ * by the interpolated correction of each sample. Runs in the background whenever the app starts;
+ * which correction a workout has is stored with it, see {@link Workout#altitudeCorrection}, so
+ * workouts restored from old backups are corrected too and the job continues where it stopped.
+ */
+public class AltitudeRecorrectionJob {
+
+    private static final String TAG = "AltitudeRecorrection";
+
+    private final AppDatabase db;
+    private final AltitudeCorrection correction;
+
+    public static void run(Context context) {
+        try {
+            new AltitudeRecorrectionJob(context).run();
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot load geoid grid", e);
+        }
+    }
+
+    private AltitudeRecorrectionJob(Context context) throws IOException {
+        this.db = Instance.getInstance(context).db;
+        this.correction = new AltitudeCorrection(context);
+    }
+
+    private void run() {
+        Workout[] workouts = db.workoutDao().getWorkoutsWithAltitudeCorrection(AltitudeCorrection.LEGACY);
+        if (workouts.length == 0) {
+            return;
+        }
+        Log.i(TAG, "Correcting altitude of " + workouts.length + " workouts");
+        for (Workout workout : workouts) {
+            db.runInTransaction(() -> {
+                recorrect(workout);
+                db.workoutDao().setAltitudeCorrection(workout.id, AltitudeCorrection.INTERPOLATED);
+            });
+        }
+    }
+
+    private void recorrect(Workout workout) {
+        WorkoutSample[] samples = SampleStorage.getSamples(db, workout.id);
+        if (samples.length == 0) {
+            return;
+        }
+        double legacyOffset = correction.getLegacyOffset(samples[0]);
+        double[] latitude = new double[samples.length];
+        double[] longitude = new double[samples.length];
+        double[] offset = new double[samples.length];
+        for (int i = 0; i < samples.length; i++) {
+            latitude[i] = samples[i].lat;
+            longitude[i] = samples[i].lon;
+        }
+        // Correcting zero elevations yields the negative geoid height at every position
+        correction.correct(latitude, longitude, offset);
+
+        if (samples[0].pressure != -1) {
+            // Pressure elevations are relative to the corrected average, so they are only shifted
+            double averageOffset = 0;
+            for (double value : offset) {
+                averageOffset += value;
+            }
+            averageOffset /= offset.length;
+            for (WorkoutSample sample : samples) {
+                sample.elevation += legacyOffset + averageOffset;
+            }
+        } else {
+            for (int i = 0; i < samples.length; i++) {
+                samples[i].elevation += legacyOffset + offset[i];
+            }
+        }
+        SampleStorage.setSamples(db, workout.id, samples);
+    }
+
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+import de.tadris.fitness.data.WorkoutSample;
+import de.tadris.fitness.data.WorkoutType;
+
+/**
+ * Smooths the elevation of a workout and sums up ascent and descent.
+ * <p>
+ * The window is symmetric around each sample: {@code range} samples before and after it. At the
+ * beginning and the end of the workout the window shrinks on both sides, so it stays centered.
+ * All methods work on primitive arrays and need linear time for a fixed window size.
+ * <p>
+ * Used when a workout is saved and can be used again for stored workouts; while recording the
+ * {@link RunningClimb} gives the same ascent and descent.
+ */
+public class ElevationSmoother {
+
+    /**
+     * Changes of the smoothed elevation below this threshold in meters are not counted as
+     * ascent or descent until they add up to it
+     */
+    public static final double CLIMB_THRESHOLD = 3;
+
+    public enum Method {
+        /**
+         * Floating average, calculated with a running sum
+         */
+        AVERAGE,
+        /**
+         * Floating median, removes single outliers completely
+         */
+        MEDIAN,
+        /**
+         * Quadratic Savitzky-Golay filter, keeps the height of hilltops better than the average.
+         * Assumes that samples are recorded in similar intervals.
+         */
+        SAVITZKY_GOLAY
+    }
+
+    private final Method method;
+    private final int range;
+
+    public ElevationSmoother(Method method, int range) {
+        if (range < 0) {
+            throw new IllegalArgumentException("range must not be negative");
+        }
+        this.method = method;
+        this.range = range;
+    }
+
+    public static ElevationSmoother forWorkoutType(WorkoutType workoutType) {
+        return new ElevationSmoother(Method.AVERAGE, workoutType.elevationSmoothingRange);
+    }
+
+    /**
+     * Smooths the elevation of the samples in place
+     *
+     * @return ascent and descent of the smoothed elevation
+     */
+    public Climb smooth(List<WorkoutSample> samples) {
+        double[] elevation = new double[samples.size()];
+        for (int i = 0; i < elevation.length; i++) {
+            elevation[i] = samples.get(i).elevation;
+        }
+        double[] smoothed = smooth(elevation);
+        for (int i = 0; i < smoothed.length; i++) {
+            samples.get(i).elevation = smoothed[i];
+        }
+        return getClimb(smoothed, CLIMB_THRESHOLD);
+    }
+
+    public double[] smooth(double[] elevation) {
+        double[] smoothed = new double[elevation.length];
+        switch (method) {
+            case MEDIAN:
+                smoothMedian(elevation, smoothed);
+                break;
+            case SAVITZKY_GOLAY:
+                smoothSavitzkyGolay(elevation, smoothed);
+                break;
+            default:
+                smoothAverage(elevation, smoothed);
+        }
+        return smoothed;
+    }
+
+    private int getRange(int index, int length) {
+        return Math.min(range, Math.min(index, length - 1 - index));
+    }
+
+    private void smoothAverage(double[] input, double[] output) {
+        // prefix[i] is the sum of the first i values
+        double[] prefix = new double[input.length + 1];
+        for (int i = 0; i < input.length; i++) {
+            prefix[i + 1] = prefix[i] + input[i];
+        }
+        for (int i = 0; i < input.length; i++) {
+            int r = getRange(i, input.length);
+            output[i] = (prefix[i + r + 1] - prefix[i - r]) / (2 * r + 1);
+        }
+    }
+
+    private void smoothMedian(double[] input, double[] output) {
+        double[] window = new double[2 * range + 1];
+        for (int i = 0; i < input.length; i++) {
+            int r = getRange(i, input.length);
+            int size = 2 * r + 1;
+            System.arraycopy(input, i - r, window, 0, size);
+            // The window is small, sorting it is faster than maintaining a sorted structure
+            Arrays.sort(window, 0, size);
+            output[i] = window[r];
+        }
+    }
+
+    private void smoothSavitzkyGolay(double[] input, double[] output) {
+        double[][] coefficients = new double[range + 1][];
+        for (int m = 0; m <= range; m++) {
+            coefficients[m] = getSavitzkyGolayCoefficients(m);
+        }
+        for (int i = 0; i < input.length; i++) {
+            int r = getRange(i, input.length);
+            double[] c = coefficients[r];
+            double sum = 0;
+            for (int k = -r; k <= r; k++) {
+                sum += c[k + r] * input[i + k];
+            }
+            output[i] = sum;
+        }
+    }
+
+    /**
+     * Smoothing coefficients of a quadratic fit over 2m+1 points
+     */
+    static double[] getSavitzkyGolayCoefficients(int m) {
+        double[] c = new double[2 * m + 1];
+        if (m == 0) {
+            c[0] = 1;
+            return c;
+        }
+        double norm = (2 * m - 1) * (2 * m + 1) * (2 * m + 3);
+        for (int k = -m; k <= m; k++) {
+            c[k + m] = (3 * (3 * m * m + 3 * m - 1) - 15 * k * k) / norm;
+        }
+        return c;
+    }
+
+    /**
+     * Sums up ascent and descent with a hysteresis: the elevation has to change by at least
+     * the threshold from the last counted elevation before the change is counted.
+     */
+    public static Climb getClimb(double[] elevation, double threshold) {
+        ClimbCounter counter = new ClimbCounter(threshold);
+        for (double value : elevation) {
+            counter.add(value);
+        }
+        return counter.getClimb();
+    }
+
+    /**
+     * The hysteresis of {@link #getClimb(double[], double)} for elevations given one by one
+     */
+    static class ClimbCounter {
+
+        private final double threshold;
+        private boolean empty = true;
+        private double reference;
+        private double ascent;
+        private double descent;
+
+        ClimbCounter(double threshold) {
+            this.threshold = threshold;
+        }
+
+        ClimbCounter(ClimbCounter other) {
+            this.threshold = other.threshold;
+            this.empty = other.empty;
+            this.reference = other.reference;
+            this.ascent = other.ascent;
+            this.descent = other.descent;
+        }
+
+        void add(double value) {
+            if (empty) {
+                reference = value;
+                empty = false;
+            } else if (value - reference >= threshold) {
+                ascent += value - reference;
+                reference = value;
+            } else if (reference - value >= threshold) {
+                descent += reference - value;
+                reference = value;
+            }
+        }
+
+        Climb getClimb() {
+            return new Climb(ascent, descent);
+        }
+    }
+
+    /**
+     * Ascent and descent of elevations that are added one by one, e.g. while recording. The result
+     * is the same as smoothing all of them with the floating average and {@link #CLIMB_THRESHOLD}
+     * by {@link #smooth(List)}. Adding an elevation and getting the climb need constant time.
+     */
+    public static class RunningClimb {
+
+        private final int range;
+        // The last 2 * range + 1 elevations
+        private final double[] window;
+        private int count = 0;
+        // Climb of the samples whose window is complete
+        private final ClimbCounter counter = new ClimbCounter(CLIMB_THRESHOLD);
+
+        public RunningClimb(int range) {
+            if (range < 0) {
+                throw new IllegalArgumentException("range must not be negative");
+            }
+            this.range = range;
+            this.window = new double[2 * range + 1];
+        }
+
+        public void add(double elevation) {
+            window[count % window.length] = elevation;
+            count++;
+            // The window of the sample range samples ago doesn't change anymore
+            int completed = count - 1 - range;
+            if (completed >= 0) {
+                counter.add(getSmoothed(completed, Math.min(range, completed)));
+            }
+        }
+
+        public Climb getClimb() {
+            // The last samples are smoothed with the window they have at the end of the workout
+            ClimbCounter result = new ClimbCounter(counter);
+            for (int i = Math.max(0, count - range); i < count; i++) {
+                result.add(getSmoothed(i, Math.min(range, Math.min(i, count - 1 - i))));
+            }
+            return result.getClimb();
+        }
+
+        private double getSmoothed(int index, int r) {
+            double sum = 0;
+            for (int i = index - r; i <= index + r; i++) {
+                sum += window[i % window.length];
+            }
+            return sum / (2 * r + 1);
+        }
+    }
+
+    public static class Climb {
+        public final double ascent;
+        public final double descent;
+
+        Climb(double ascent, double descent) {
+            this.ascent = ascent;
+            this.descent = descent;
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.util;
+
+import android.content.Context;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import de.tadris.fitness.R;
+
+/**
+ * Geoid heights in a 1 degree grid, compiled from geoids.csv by the compileGeoids build task.
+ * <p>
+ * The resource contains big endian float32 values for every full degree, indexed by
+ * (lat + 90) * 360 + (lon + 180). Longitude 180 is the same as -180 and not stored.
+ * The grid is loaded once and shared by the whole process.
+ */
+public class GeoidGrid {
+
+    static final int ROWS = 181;
+    static final int COLUMNS = 360;
+
+    private static volatile GeoidGrid instance;
+
+    public static GeoidGrid getInstance(Context context) throws IOException {
+        if (instance == null) {
+            synchronized (GeoidGrid.class) {
+                if (instance == null) {
+                    try (InputStream input = context.getResources().openRawResource(R.raw.geoids)) {
+                        instance = read(input);
+                    }
+                }
+            }
+        }
+        return instance;
+    }
+
+    public static GeoidGrid read(InputStream input) throws IOException {
+        byte[] data = IOUtils.toByteArray(input);
+        if (data.length != ROWS * COLUMNS * 4) {
+            throw new IOException("Invalid geoid grid with " + data.length + " bytes");
+        }
+        float[] heights = new float[ROWS * COLUMNS];
+        ByteBuffer.wrap(data).asFloatBuffer().get(heights);
+        return new GeoidGrid(heights);
+    }
+
+    private final float[] heights;
+
+    private GeoidGrid(float[] heights) {
+        this.heights = heights;
+    }
+
+    /**
+     * @param latitude  full degrees from -90 to 90
+     * @param longitude full degrees from -180 to 180
+     * @return how much higher the sea-level than the WGS84 ellipsoid is in meters
+     */
+    public float getHeight(int latitude, int longitude) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Invalid position " + latitude + ", " + longitude);
+        }
+        if (longitude == 180) {
+            longitude = -180;
+        }
+        return heights[(latitude + 90) * COLUMNS + (longitude + 180)];
+    }
+
+    /**
+     * Interpolates bilinearly between the four surrounding grid points
+     *
+     * @return how much higher the sea-level than the WGS84 ellipsoid is in meters
+     */
+    public double getHeight(double latitude, double longitude) {
+        double row = Math.min(Math.max(latitude + 90, 0), ROWS - 1);
+        int row0 = Math.min((int) row, ROWS - 2);
+        double rowFraction = row - row0;
+
+        double column = longitude + 180;
+        column -= Math.floor(column / COLUMNS) * COLUMNS; // Wrap around the date line
+        int column0 = (int) column;
+        if (column0 >= COLUMNS) {
+            column0 -= COLUMNS;
+        }
+        double columnFraction = column - column0;
+        int column1 = column0 + 1 == COLUMNS ? 0 : column0 + 1;
+
+        int index0 = row0 * COLUMNS;
+        int index1 = index0 + COLUMNS;
+        double south = heights[index0 + column0] + (heights[index0 + column1] - heights[index0 + column0]) * columnFraction;
+        double north = heights[index1 + column0] + (heights[index1 + column1] - heights[index1 + column0]) * columnFraction;
+        return south + (north - south) * rowFraction;
+    }
+
+}
@@ -25,36 +25,45 @@ import android.content.Context;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 
 import de.tadris.fitness.Instance;
+import de.tadris.fitness.data.SampleStorage;
 import de.tadris.fitness.data.Workout;
 import de.tadris.fitness.data.WorkoutSample;
 
 public class GpxExporter {
 
     public static void exportWorkout(Context context, Workout workout, File file) throws IOException {
+        WorkoutSample[] samples= SampleStorage.getSamples(Instance.getInstance(context).db, workout.id);
+        try(OutputStream output= new FileOutputStream(file)){
+            exportWorkout(workout, samples, output);
+        }
+    }
+
+    public static void exportWorkout(Workout workout, WorkoutSample[] samples, OutputStream output) throws IOException {
         XmlMapper mapper= new XmlMapper();
-        mapper.writeValue(file, getGpxFromWorkout(context, workout));
+        mapper.writeValue(output, getGpxFromWorkout(workout, samples));
     }
 
-    private static Gpx getGpxFromWorkout(Context context, Workout workout) {
+    private static Gpx getGpxFromWorkout(Workout workout, WorkoutSample[] samples) {
         Gpx gpx= new Gpx();
         gpx.name= workout.toString();
         gpx.version= "1.1";
         gpx.creator= "FitoTrack";
         gpx.metadata= new Metadata(workout.toString(), workout.comment, getDateTime(workout.start));
         gpx.trk= new ArrayList<>();
-        gpx.trk.add(getTrackFromWorkout(context, workout, 0));
+        gpx.trk.add(getTrackFromWorkout(workout, samples, 0));
 
         return gpx;
     }
 
-    private static Track getTrackFromWorkout(Context context, Workout workout, int number) {
-        WorkoutSample[] samples= Instance.getInstance(context).db.workoutDao().getAllSamplesOfWorkout(workout.id);
+    private static Track getTrackFromWorkout(Workout workout, WorkoutSample[] samples, int number) {
         Track track= new Track();
         track.number= number;
         track.name= workout.toString();
@@ -19,21 +19,34 @@
 
 package de.tadris.fitness.view;
 
+import android.os.Handler;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.Objects;
 
 import de.tadris.fitness.R;
-import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutRepository;
+import de.tadris.fitness.data.WorkoutSummary;
 import de.tadris.fitness.util.unit.UnitUtils;
 
+/**
+ * Shows the workout list and loads it page by page from the {@link WorkoutRepository} while the user scrolls.
+ * New lists are compared to the shown one on a background thread, only the rows that changed are updated.
+ * Changes of the database are combined, see {@link #scheduleReload()}.
+ */
 public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.WorkoutViewHolder>{
 
 
@@ -57,14 +70,122 @@ public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.WorkoutV
         }
     }
 
-    private final Workout[] workouts;
-    private final WorkoutAdapterListener listener;
+    private static final int PAGE_SIZE = 50;
+
+    /**
+     * The next page is requested when one of the last PREFETCH_DISTANCE loaded items is bound
+     */
+    private static final int PREFETCH_DISTANCE = 15;
+
+    /**
+     * Minimum time between two reloads caused by changes, in milliseconds
+     */
+    private static final long RELOAD_DELAY = 500;
 
-    public WorkoutAdapter(Workout[] workouts, WorkoutAdapterListener listener) {
-        this.workouts = workouts;
+    private final WorkoutRepository repository;
+    private final WorkoutAdapterListener listener;
+    private final AsyncListDiffer<WorkoutSummary> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+
+    /**
+     * The list that was submitted last, the differ may still show the one before
+     */
+    private List<WorkoutSummary> workouts = new ArrayList<>();
+    private boolean loading = false;
+    private boolean endReached = false;
+
+    /**
+     * Incremented by {@link #reload()} so that pages requested before are dropped
+     */
+    private int generation = 0;
+
+    private final Handler handler = new Handler();
+    private final Runnable scheduledReload = this::reload;
+    private boolean reloadScheduled = false;
+
+    public WorkoutAdapter(WorkoutRepository repository, WorkoutAdapterListener listener) {
+        this.repository = repository;
         this.listener = listener;
     }
 
+    /**
+     * Reloads the list after {@link #RELOAD_DELAY}. Further calls until then don't cause another
+     * reload, so a background job that updates one workout after another reloads the list only
+     * every {@link #RELOAD_DELAY} instead of once per workout.
+     */
+    public void scheduleReload() {
+        if (!reloadScheduled) {
+            reloadScheduled = true;
+            handler.postDelayed(scheduledReload, RELOAD_DELAY);
+        }
+    }
+
+    public void cancelScheduledReload() {
+        handler.removeCallbacks(scheduledReload);
+        reloadScheduled = false;
+    }
+
+    /**
+     * Loads the list again, at least as many workouts as are loaded right now so the scroll position is kept
+     */
+    public void reload() {
+        cancelScheduledReload();
+        generation++;
+        int count = Math.max(PAGE_SIZE, workouts.size());
+        int requestGeneration = generation;
+        loading = true;
+        repository.getWorkoutSummaries(null, count, result -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            loading = false;
+            endReached = result.length < count;
+            submit(Arrays.asList(result));
+        }, e -> onLoadFailed(requestGeneration, e));
+    }
+
+    private void loadNextPage() {
+        if (loading || endReached) {
+            return;
+        }
+        loading = true;
+        int requestGeneration = generation;
+        repository.getWorkoutSummaries(getLast(), PAGE_SIZE, result -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            loading = false;
+            endReached = result.length < PAGE_SIZE;
+            List<WorkoutSummary> list = new ArrayList<>(workouts);
+            list.addAll(Arrays.asList(result));
+            submit(list);
+        }, e -> onLoadFailed(requestGeneration, e));
+    }
+
+    private void onLoadFailed(int requestGeneration, Exception e) {
+        if (requestGeneration != generation) {
+            return;
+        }
+        loading = false;
+        listener.onLoadFailed(e);
+    }
+
+    private void submit(List<WorkoutSummary> list) {
+        workouts = list;
+        differ.submitList(list);
+    }
+
+    /**
+     * @return the first (newest) workout that is shown or null if the list is empty
+     */
+    public WorkoutSummary getFirst() {
+        List<WorkoutSummary> shown = differ.getCurrentList();
+        return shown.isEmpty() ? null : shown.get(0);
+    }
+
+    private WorkoutSummary getLast() {
+        return workouts.isEmpty() ? null : workouts.get(workouts.size() - 1);
+    }
+
     @Override
     public WorkoutAdapter.WorkoutViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
         // create a new view
@@ -75,7 +196,11 @@ public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.WorkoutV
     // Replace the contents of a view (invoked by the layout manager)
     @Override
     public void onBindViewHolder(WorkoutViewHolder holder, final int position) {
-        Workout workout= workouts[position];
+        List<WorkoutSummary> shown= differ.getCurrentList();
+        if(position >= shown.size() - PREFETCH_DISTANCE){
+            loadNextPage();
+        }
+        WorkoutSummary workout= shown.get(position);
         holder.dateText.setText(SimpleDateFormat.getDateTimeInstance().format(new Date(workout.start)));
         holder.typeText.setText(workout.getWorkoutType().title);
         if(workout.comment != null){
@@ -89,9 +214,10 @@ public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.WorkoutV
         }
         holder.lengthText.setText(UnitUtils.getDistance(workout.length));
         holder.timeText.setText(UnitUtils.getHourMinuteTime(workout.duration));
-        holder.root.setOnClickListener(v -> listener.onItemClick(position, workout));
+        // Rows are moved without binding them again, so the position is read when the row is clicked
+        holder.root.setOnClickListener(v -> listener.onItemClick(holder.getAdapterPosition(), workout));
         holder.root.setOnLongClickListener(v -> {
-            listener.onItemLongClick(position, workout);
+            listener.onItemLongClick(holder.getAdapterPosition(), workout);
             return true;
         });
     }
@@ -99,12 +225,29 @@ public class WorkoutAdapter extends RecyclerView.Adapter<WorkoutAdapter.WorkoutV
     // Return the size of your dataset (invoked by the layout manager)
     @Override
     public int getItemCount() {
-        return workouts.length;
+        return differ.getCurrentList().size();
     }
 
+    private static final DiffUtil.ItemCallback<WorkoutSummary> DIFF_CALLBACK = new DiffUtil.ItemCallback<WorkoutSummary>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull WorkoutSummary oldItem, @NonNull WorkoutSummary newItem) {
+            return oldItem.id == newItem.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull WorkoutSummary oldItem, @NonNull WorkoutSummary newItem) {
+            return oldItem.start == newItem.start
+                    && oldItem.duration == newItem.duration
+                    && oldItem.length == newItem.length
+                    && Objects.equals(oldItem.comment, newItem.comment)
+                    && Objects.equals(oldItem.workoutTypeId, newItem.workoutTypeId);
+        }
+    };
+
     public interface WorkoutAdapterListener{
-        void onItemClick(int pos, Workout workout);
-        void onItemLongClick(int pos, Workout workout);
+        void onItemClick(int pos, WorkoutSummary workout);
+        void onItemLongClick(int pos, WorkoutSummary workout);
+        void onLoadFailed(Exception e);
     }
 
 
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.tadris.fitness.recording.announcement.AnnouncementTrigger;
+
+public class AnnouncementTriggerTest {
+
+    @Test
+    public void testThresholdsAreMultiplesOfInterval() {
+        AnnouncementTrigger trigger = new AnnouncementTrigger(5 * 60 * 1000, 1000);
+        Assert.assertEquals(AnnouncementTrigger.NONE, trigger.check(299999, 999));
+        Assert.assertEquals(AnnouncementTrigger.TIME, trigger.check(300000, 999));
+        Assert.assertEquals(AnnouncementTrigger.TIME | AnnouncementTrigger.DISTANCE, trigger.check(300500, 1001));
+
+        trigger.advance(301000, 1001);
+        Assert.assertEquals(600000, trigger.getNextTime());
+        Assert.assertEquals(2000, trigger.getNextDistance());
+        Assert.assertEquals(AnnouncementTrigger.NONE, trigger.check(301000, 1001));
+    }
+
+    @Test
+    public void testSkippedThresholdsFireOnce() {
+        AnnouncementTrigger trigger = new AnnouncementTrigger(0, 1000);
+        Assert.assertEquals(AnnouncementTrigger.DISTANCE, trigger.check(0, 3500));
+        trigger.advance(0, 3500);
+        Assert.assertEquals(4000, trigger.getNextDistance());
+    }
+
+    @Test
+    public void testDisabledIntervals() {
+        AnnouncementTrigger trigger = new AnnouncementTrigger(0, 0);
+        Assert.assertFalse(trigger.hasTimeThreshold());
+        Assert.assertFalse(trigger.hasDistanceThreshold());
+        Assert.assertEquals(AnnouncementTrigger.NONE, trigger.check(Long.MAX_VALUE - 1, Integer.MAX_VALUE - 1));
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+import de.tadris.fitness.util.ElevationSmoother;
+
+public class ElevationSmootherTest {
+
+    @Test
+    public void testAverageUsesSymmetricWindow() {
+        double[] elevation = new double[100];
+        Random random = new Random(1);
+        for (int i = 0; i < elevation.length; i++) {
+            elevation[i] = random.nextDouble() * 100;
+        }
+        double[] smoothed = new ElevationSmoother(ElevationSmoother.Method.AVERAGE, 7).smooth(elevation);
+        for (int i = 0; i < elevation.length; i++) {
+            int range = Math.min(7, Math.min(i, elevation.length - 1 - i));
+            double sum = 0;
+            for (int j = i - range; j <= i + range; j++) {
+                sum += elevation[j];
+            }
+            Assert.assertEquals(sum / (2 * range + 1), smoothed[i], 1e-9);
+        }
+    }
+
+    @Test
+    public void testMedianRemovesOutlier() {
+        double[] elevation = {10, 10, 10, 10, 80, 10, 10, 10, 10};
+        double[] smoothed = new ElevationSmoother(ElevationSmoother.Method.MEDIAN, 2).smooth(elevation);
+        for (double value : smoothed) {
+            Assert.assertEquals(10, value, 0);
+        }
+    }
+
+    @Test
+    public void testSavitzkyGolayKeepsQuadraticCurve() {
+        double[] elevation = new double[50];
+        for (int i = 0; i < elevation.length; i++) {
+            elevation[i] = 100 - 0.1 * (i - 25) * (i - 25);
+        }
+        double[] smoothed = new ElevationSmoother(ElevationSmoother.Method.SAVITZKY_GOLAY, 5).smooth(elevation);
+        for (int i = 0; i < elevation.length; i++) {
+            Assert.assertEquals(elevation[i], smoothed[i], 1e-9);
+        }
+    }
+
+    @Test
+    public void testClimbIgnoresNoiseBelowThreshold() {
+        double[] elevation = {100, 101, 100, 102, 100, 101, 110, 111, 109, 100};
+        ElevationSmoother.Climb climb = ElevationSmoother.getClimb(elevation, 3);
+        Assert.assertEquals(10, climb.ascent, 1e-9);
+        Assert.assertEquals(10, climb.descent, 1e-9);
+    }
+
+}
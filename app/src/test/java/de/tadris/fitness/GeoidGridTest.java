@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import de.tadris.fitness.util.AltitudeCorrection;
+import de.tadris.fitness.util.GeoidGrid;
+
+public class GeoidGridTest {
+
+    @Test
+    public void testLookup() throws IOException {
+        GeoidGrid grid = GeoidGrid.read(new ByteArrayInputStream(createGrid(181 * 360)));
+        Assert.assertEquals(0, grid.getHeight(-90, -180), 0);
+        Assert.assertEquals(142 * 360 + 193, grid.getHeight(52, 13), 0);
+        Assert.assertEquals(180 * 360 + 359, grid.getHeight(90, 179), 0);
+        // Longitude 180 is the same as -180
+        Assert.assertEquals(grid.getHeight(10, -180), grid.getHeight(10, 180), 0);
+
+    }
+
+    @Test
+    public void testInterpolation() throws IOException {
+        GeoidGrid grid = GeoidGrid.read(new ByteArrayInputStream(createGrid(181 * 360)));
+        // Same as the grid point
+        Assert.assertEquals(grid.getHeight(52, 13), grid.getHeight(52.0, 13.0), 1e-9);
+        // Between four grid points
+        double expected = (grid.getHeight(52, 13) + grid.getHeight(52, 14) + grid.getHeight(53, 13) + grid.getHeight(53, 14)) / 4;
+        Assert.assertEquals(expected, grid.getHeight(52.5, 13.5), 1e-3);
+        // Across the date line and at the pole
+        Assert.assertEquals((grid.getHeight(0, 179) + grid.getHeight(0, -180)) / 2, grid.getHeight(0, 179.5), 1e-3);
+        Assert.assertEquals(grid.getHeight(90, 10), grid.getHeight(90.0, 10.0), 1e-3);
+    }
+
+    @Test
+    public void testCorrectArrays() throws IOException {
+        GeoidGrid grid = GeoidGrid.read(new ByteArrayInputStream(createGrid(181 * 360)));
+        AltitudeCorrection correction = new AltitudeCorrection(grid);
+        double[] latitude = {52.2, 52.7};
+        double[] longitude = {13.1, 13.9};
+        double[] elevation = {100, 100};
+        correction.correct(latitude, longitude, elevation);
+        Assert.assertEquals(100 - grid.getHeight(52.2, 13.1), elevation[0], 1e-9);
+        Assert.assertEquals(correction.getHeightOverSeaLevel(52.7, 13.9, 100), elevation[1], 1e-9);
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidSize() throws IOException {
+        GeoidGrid.read(new ByteArrayInputStream(createGrid(100)));
+    }
+
+    /**
+     * @return grid where each height is its index
+     */
+    private byte[] createGrid(int size) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        for (int i = 0; i < size; i++) {
+            output.writeFloat(i);
+        }
+        return bytes.toByteArray();
+    }
+
+}
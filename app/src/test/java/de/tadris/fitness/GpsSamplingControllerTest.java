@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.tadris.fitness.data.WorkoutType;
+import de.tadris.fitness.recording.GpsSamplingController;
+import de.tadris.fitness.recording.WorkoutRecorder;
+
+public class GpsSamplingControllerTest {
+
+    @Test
+    public void testIntervalDependsOnSpeed() {
+        Assert.assertEquals(1000, intervalAfterTwoUpdates(WorkoutType.CYCLING, 8, false, 80));
+        Assert.assertEquals(3000, intervalAfterTwoUpdates(WorkoutType.HIKING, 1, false, 80));
+    }
+
+    @Test
+    public void testPausedAndLowBattery() {
+        Assert.assertEquals(5000, intervalAfterTwoUpdates(WorkoutType.RUNNING, 0, true, 80));
+        Assert.assertEquals(2000, intervalAfterTwoUpdates(WorkoutType.CYCLING, 8, false, 10));
+    }
+
+    @Test
+    public void testIntervalChangesOnlyIfStable() {
+        GpsSamplingController controller = new GpsSamplingController();
+        long[] notified = {0};
+        controller.setListener(interval -> notified[0] = interval);
+        controller.update(WorkoutType.RUNNING, 0, WorkoutRecorder.GpsState.SIGNAL_OKAY, true, 80);
+        Assert.assertEquals(1000, controller.getInterval());
+        controller.update(WorkoutType.RUNNING, 0, WorkoutRecorder.GpsState.SIGNAL_OKAY, true, 80);
+        Assert.assertEquals(5000, controller.getInterval());
+        Assert.assertEquals(5000, notified[0]);
+    }
+
+    private long intervalAfterTwoUpdates(WorkoutType type, double speed, boolean paused, int battery) {
+        GpsSamplingController controller = new GpsSamplingController();
+        controller.update(type, speed, WorkoutRecorder.GpsState.SIGNAL_OKAY, paused, battery);
+        controller.update(type, speed, WorkoutRecorder.GpsState.SIGNAL_OKAY, paused, battery);
+        return controller.getInterval();
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import de.tadris.fitness.recording.pipeline.SampleRecord;
+import de.tadris.fitness.recording.replay.GpxReplaySource;
+
+public class GpxReplaySourceTest {
+
+    private static final long START = 1577836800000L; // 2020-01-01
+
+    @Test
+    public void testGpxReplay() throws Exception {
+        String gpx = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+                "<gpx><trk><trkseg>" +
+                "<trkpt lat=\"52.5\" lon=\"13.4\"><ele>40.0</ele><time>2020-01-01T00:00:00.000Z</time>" +
+                "<extensions><speed>2.5</speed></extensions></trkpt>" +
+                "<trkpt lat=\"52.5001\" lon=\"13.4\"><ele>41.0</ele><time>2020-01-01T00:00:05Z</time></trkpt>" +
+                "</trkseg></trk></gpx>";
+        GpxReplaySource source = new GpxReplaySource(new ByteArrayInputStream(gpx.getBytes(StandardCharsets.UTF_8)));
+
+        SampleRecord first = source.next();
+        Assert.assertEquals(52.5, first.lat, 0);
+        Assert.assertEquals(40, first.elevation, 0);
+        Assert.assertEquals(START, first.time);
+        Assert.assertEquals(2.5, first.speed, 0);
+
+        SampleRecord second = source.next();
+        Assert.assertEquals(START + 5000, second.time);
+        Assert.assertEquals(11.13 / 5, second.speed, 0.01); // Calculated from the distance
+
+        Assert.assertNull(source.next());
+        source.close();
+    }
+
+}
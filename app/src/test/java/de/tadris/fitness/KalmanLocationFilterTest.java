@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+import de.tadris.fitness.recording.KalmanLocationFilter;
+
+public class KalmanLocationFilterTest {
+
+    private static final double METERS_PER_DEGREE = 111319.49;
+
+    @Test
+    public void testReducesJitter() {
+        // Walk north at 3 m/s for 10 minutes with 5m GPS noise
+        KalmanLocationFilter filter = new KalmanLocationFilter(1);
+        Random random = new Random(42);
+        double rawLength = 0, filteredLength = 0;
+        double lastRawLat = 0, lastFilteredLat = 0, lastRawLon = 0, lastFilteredLon = 0;
+        for (int i = 0; i < 600; i++) {
+            double lat = 50 + i * 3 / METERS_PER_DEGREE + random.nextGaussian() * 5 / METERS_PER_DEGREE;
+            double lon = 8 + random.nextGaussian() * 5 / METERS_PER_DEGREE;
+            filter.update(lat, lon, 5, i * 1000L);
+            if (i > 0) {
+                rawLength += distance(lastRawLat, lastRawLon, lat, lon);
+                filteredLength += distance(lastFilteredLat, lastFilteredLon, filter.getLatitude(), filter.getLongitude());
+            }
+            lastRawLat = lat;
+            lastRawLon = lon;
+            lastFilteredLat = filter.getLatitude();
+            lastFilteredLon = filter.getLongitude();
+        }
+        double realLength = 599 * 3;
+        System.out.println("Raw: " + rawLength + " Filtered: " + filteredLength + " Real: " + realLength);
+        // The filtered length should be much closer to the real length
+        Assert.assertTrue(Math.abs(filteredLength - realLength) * 4 < Math.abs(rawLength - realLength));
+    }
+
+    @Test
+    public void testResetsAfterGap() {
+        KalmanLocationFilter filter = new KalmanLocationFilter(1);
+        filter.update(50, 8, 5, 0);
+        filter.update(50.001, 8, 5, 1000);
+        filter.update(51, 9, 5, 1000 * 60 * 10);
+        Assert.assertEquals(51, filter.getLatitude(), 1e-9);
+        Assert.assertEquals(9, filter.getLongitude(), 1e-9);
+    }
+
+    private static double distance(double lat1, double lon1, double lat2, double lon2) {
+        double dy = (lat2 - lat1) * METERS_PER_DEGREE;
+        double dx = (lon2 - lon1) * METERS_PER_DEGREE * Math.cos(Math.toRadians(lat1));
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.tadris.fitness.recording.PressureHistory;
+
+public class PressureHistoryTest {
+
+    @Test
+    public void testInterpolation() {
+        PressureHistory history = new PressureHistory();
+        Assert.assertEquals(-1, history.getPressureAt(0), 0);
+        for (int i = 0; i < 10; i++) {
+            history.add(i * 1000L, 1000f + i);
+        }
+        Assert.assertEquals(1001f, history.getPressureAt(-500), 0.001);
+        Assert.assertEquals(1008f, history.getPressureAt(20000), 0.001);
+        Assert.assertEquals(1004.5f, history.getPressureAt(4500), 0.001);
+    }
+
+    @Test
+    public void testMedianRemovesSpikes() {
+        PressureHistory history = new PressureHistory();
+        for (int i = 0; i < 10; i++) {
+            history.add(i * 1000L, i == 5 ? 900f : 1000f);
+        }
+        Assert.assertEquals(1000f, history.getPressureAt(5000), 0.001);
+    }
+
+    @Test
+    public void testRingBufferKeepsLatestReadings() {
+        PressureHistory history = new PressureHistory();
+        for (int i = 0; i < 1000; i++) {
+            history.add(i, i);
+        }
+        Assert.assertEquals(999, history.getLatestTime());
+        Assert.assertEquals(998f, history.getPressureAt(998), 0.001);
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs EXPLAIN QUERY PLAN for every query of the WorkoutDao on an SQLite database with the
+ * current schema and fails if a query that selects rows scans a whole table.
+ * Queries without WHERE clause read the whole table by design and are not checked.
+ */
+public class QueryPlanTest {
+
+    private static final File DAO_SOURCE = new File("src/main/java/de/tadris/fitness/data/WorkoutDao.java");
+
+    /**
+     * Directory with the schemas that Room exports for every database version, see room.schemaLocation in build.gradle
+     */
+    private static final File SCHEMA_DIRECTORY = new File("schemas/de.tadris.fitness.data.AppDatabase");
+
+
+    private Connection connection;
+
+    @Before
+    public void setup() throws IOException, SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        createSchema(connection);
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void testDaoQueriesUseIndices() throws Exception {
+        List<String> queries = getQueries(DAO_SOURCE);
+        Assert.assertFalse("No queries found in " + DAO_SOURCE, queries.isEmpty());
+        for (String query : queries) {
+            if (!query.toUpperCase().contains("WHERE")) {
+                continue;
+            }
+            assertNoFullScan(query);
+        }
+    }
+
+    @Test
+    public void testDeleteCascadeUsesIndex() throws Exception {
+        // SQLite looks up the children of a deleted workout with this query
+        assertNoFullScan("SELECT * FROM workout_sample WHERE workout_id = :workout_id");
+    }
+
+    private void assertNoFullScan(String query) throws SQLException {
+        // Bind parameters are replaced by a constant, the plan does not depend on the value
+        String sql = query.replaceAll(":\\w+", "0");
+        try (Statement statement = connection.createStatement();
+             ResultSet plan = statement.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+            while (plan.next()) {
+                String detail = plan.getString("detail");
+                boolean fullScan = detail.startsWith("SCAN") && !detail.contains("INDEX");
+                Assert.assertFalse("Full table scan in \"" + query + "\": " + detail, fullScan);
+            }
+        }
+    }
+
+    /**
+     * Creates the tables and indices of the latest database version like Room does
+     */
+    static void createSchema(Connection connection) throws IOException, SQLException {
+        JsonNode database = new ObjectMapper().readTree(getLatestSchema()).get("database");
+        try (Statement statement = connection.createStatement()) {
+            for (JsonNode entity : database.get("entities")) {
+                String table = entity.get("tableName").asText();
+                statement.execute(entity.get("createSql").asText().replace("${TABLE_NAME}", table));
+                for (JsonNode index : entity.get("indices")) {
+                    statement.execute(index.get("createSql").asText()
+                            .replace("${TABLE_NAME}", table)
+                            .replace("${INDEX_NAME}", index.get("name").asText()));
+                }
+            }
+        }
+    }
+
+    private static File getLatestSchema() {
+        File[] schemas = SCHEMA_DIRECTORY.listFiles((dir, name) -> name.matches("\\d+\\.json"));
+        // Room's annotation processor exports the schema when the app is compiled, before the tests run
+        String message = "No exported schemas in " + SCHEMA_DIRECTORY + ", compile the app first";
+        Assert.assertNotNull(message, schemas);
+        Assert.assertNotEquals(message, 0, schemas.length);
+        File latest = schemas[0];
+        for (File schema : schemas) {
+            if (getVersion(schema) > getVersion(latest)) {
+                latest = schema;
+            }
+        }
+        return latest;
+    }
+
+    private static int getVersion(File schema) {
+        return Integer.parseInt(schema.getName().replace(".json", ""));
+    }
+
+    /**
+     * @return the SQL of all @Query annotations in the source file
+     */
+    static List<String> getQueries(File source) throws IOException {
+        String code = new String(Files.readAllBytes(source.toPath()), StandardCharsets.UTF_8);
+        Matcher annotation = Pattern.compile("@Query\\((.*?)\\)\\s*\\n", Pattern.DOTALL).matcher(code);
+        Pattern literal = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"");
+        List<String> queries = new ArrayList<>();
+        while (annotation.find()) {
+            StringBuilder query = new StringBuilder();
+            Matcher part = literal.matcher(annotation.group(1));
+            while (part.find()) {
+                query.append(part.group(1));
+            }
+            queries.add(query.toString());
+        }
+        return queries;
+    }
+
+}
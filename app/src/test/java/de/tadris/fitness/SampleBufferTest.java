@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+import de.tadris.fitness.recording.SampleBuffer;
+
+public class SampleBufferTest {
+
+    @Test
+    public void testAppendAcrossChunks() {
+        SampleBuffer<Integer> buffer = new SampleBuffer<>();
+        for (int i = 0; i < 5000; i++) {
+            buffer.add(i);
+        }
+        Assert.assertEquals(5000, buffer.size());
+        Assert.assertEquals(4999, (int) buffer.getLast());
+        List<Integer> snapshot = buffer.snapshot();
+        for (int i = 0; i < 5000; i++) {
+            Assert.assertEquals(i, (int) snapshot.get(i));
+        }
+    }
+
+    @Test
+    public void testSnapshotIsStable() {
+        SampleBuffer<Integer> buffer = new SampleBuffer<>();
+        buffer.add(1);
+        buffer.add(2);
+        List<Integer> snapshot = buffer.snapshot();
+        buffer.add(3);
+        buffer.clear();
+        Assert.assertEquals(2, snapshot.size());
+        Assert.assertEquals(2, (int) snapshot.get(1));
+        Assert.assertEquals(0, buffer.size());
+        Assert.assertNull(buffer.getLast());
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.tadris.fitness.data.WorkoutSample;
+import de.tadris.fitness.recording.SampleCleaner;
+
+public class SampleCleanerTest {
+
+    @Test
+    public void testDropsSameTimeAndOutOfOrder() {
+        List<WorkoutSample> samples = new ArrayList<>();
+        samples.add(sample(1000, 0));
+        samples.add(sample(1000, 1));
+        samples.add(sample(2000, 2));
+        samples.add(sample(1500, 3));
+        samples.add(sample(3000, 4));
+        samples.add(sample(3000, 5));
+        samples.add(sample(3000, 6));
+
+        SampleCleaner cleaner = new SampleCleaner();
+        cleaner.clean(samples);
+
+        Assert.assertEquals(3, samples.size());
+        Assert.assertEquals(0, samples.get(0).lat, 0);
+        Assert.assertEquals(2, samples.get(1).lat, 0);
+        Assert.assertEquals(4, samples.get(2).lat, 0);
+        Assert.assertEquals(3, cleaner.getDroppedSameTime());
+        Assert.assertEquals(1, cleaner.getDroppedOutOfOrder());
+        Assert.assertEquals(0, cleaner.getDroppedZeroDistance());
+    }
+
+    @Test
+    public void testDropsSampleFromTheFuture() {
+        List<WorkoutSample> samples = new ArrayList<>();
+        samples.add(sample(1000, 0));
+        samples.add(sample(2000, 1));
+        samples.add(sample(4102444800000L, 2)); // 2100-01-01
+        for (int i = 3; i < 10; i++) {
+            samples.add(sample(i * 1000, i));
+        }
+
+        SampleCleaner cleaner = new SampleCleaner();
+        cleaner.clean(samples);
+
+        Assert.assertEquals(9, samples.size());
+        for (int i = 1; i < samples.size(); i++) {
+            Assert.assertTrue(samples.get(i).absoluteTime > samples.get(i - 1).absoluteTime);
+        }
+        Assert.assertEquals(9000, samples.get(8).absoluteTime);
+        Assert.assertEquals(1, cleaner.getDroppedOutOfOrder());
+    }
+
+    @Test
+    public void testDropsRunFromTheFutureAtStart() {
+        List<WorkoutSample> samples = new ArrayList<>();
+        samples.add(sample(9000000, 0));
+        samples.add(sample(9001000, 1));
+        for (int i = 2; i < 10; i++) {
+            samples.add(sample(i * 1000, i));
+        }
+
+        SampleCleaner cleaner = new SampleCleaner();
+        cleaner.clean(samples);
+
+        Assert.assertEquals(8, samples.size());
+        Assert.assertEquals(2000, samples.get(0).absoluteTime);
+        Assert.assertEquals(2, cleaner.getDroppedOutOfOrder());
+    }
+
+    @Test
+    public void testKeepsTrackWhenFollowingSamplesDisagree() {
+        List<WorkoutSample> samples = new ArrayList<>();
+        samples.add(sample(10000, 0));
+        samples.add(sample(11000, 1));
+        samples.add(sample(12000, 2));
+        samples.add(sample(5000, 3)); // Two samples back in time, then the track continues
+        samples.add(sample(6000, 4));
+        samples.add(sample(13000, 5));
+
+        SampleCleaner cleaner = new SampleCleaner();
+        cleaner.clean(samples);
+
+        Assert.assertEquals(4, samples.size());
+        Assert.assertEquals(12000, samples.get(2).absoluteTime);
+        Assert.assertEquals(13000, samples.get(3).absoluteTime);
+        Assert.assertEquals(2, cleaner.getDroppedOutOfOrder());
+    }
+
+    @Test
+    public void testKeepsFirstAndLastSampleOfZeroDistanceRun() {
+        List<WorkoutSample> samples = new ArrayList<>();
+        samples.add(sample(1000, 0));
+        samples.add(sample(2000, 1));
+        samples.add(sample(3000, 1));
+        samples.add(sample(4000, 1));
+        samples.add(sample(5000, 1));
+        samples.add(sample(6000, 2));
+
+        SampleCleaner cleaner = new SampleCleaner();
+        cleaner.clean(samples);
+
+        Assert.assertEquals(4, samples.size());
+        Assert.assertEquals(2000, samples.get(1).absoluteTime);
+        Assert.assertEquals(5000, samples.get(2).absoluteTime);
+        Assert.assertEquals(6000, samples.get(3).absoluteTime);
+        Assert.assertEquals(2, cleaner.getDroppedZeroDistance());
+        Assert.assertEquals(2, cleaner.getDropped());
+    }
+
+    @Test
+    public void testManyDuplicates() {
+        List<WorkoutSample> samples = new ArrayList<>();
+        for (int i = 0; i < 200000; i++) {
+            samples.add(sample(i / 4, i));
+        }
+        new SampleCleaner().clean(samples);
+        Assert.assertEquals(50000, samples.size());
+        Assert.assertEquals(49999, samples.get(49999).absoluteTime);
+    }
+
+    private WorkoutSample sample(long time, double lat) {
+        WorkoutSample sample = new WorkoutSample();
+        sample.absoluteTime = time;
+        sample.lat = lat;
+        sample.lon = 10;
+        return sample;
+    }
+
+}
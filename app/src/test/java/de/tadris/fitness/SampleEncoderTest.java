@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.DeflaterOutputStream;
+
+import de.tadris.fitness.data.SampleDecoder;
+import de.tadris.fitness.data.SampleEncoder;
+import de.tadris.fitness.data.WorkoutSample;
+
+public class SampleEncoderTest {
+
+    private static final int VERSION = 1; // SampleEncoder.VERSION, package-private
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        WorkoutSample[] samples = createTrack(3600, true);
+        WorkoutSample[] decoded = SampleDecoder.decode(SampleEncoder.encode(samples), 42);
+
+        Assert.assertEquals(samples.length, decoded.length);
+        for (int i = 0; i < samples.length; i++) {
+            WorkoutSample expected = samples[i];
+            WorkoutSample actual = decoded[i];
+            Assert.assertEquals(expected.id, actual.id);
+            Assert.assertEquals(42, actual.workoutId);
+            Assert.assertEquals(expected.absoluteTime, actual.absoluteTime);
+            Assert.assertEquals(expected.relativeTime, actual.relativeTime);
+            Assert.assertEquals(expected.lat, actual.lat, 0.5e-7);
+            Assert.assertEquals(expected.lon, actual.lon, 0.5e-7);
+            Assert.assertEquals(expected.elevation, actual.elevation, 0.005);
+            Assert.assertEquals(expected.speed, actual.speed, 0.0005);
+            Assert.assertEquals(expected.pressure, actual.pressure, 0.006);
+        }
+    }
+
+    @Test
+    public void testNoPressure() throws IOException {
+        WorkoutSample[] decoded = SampleDecoder.decode(SampleEncoder.encode(createTrack(10, false)), 1);
+        for (WorkoutSample sample : decoded) {
+            Assert.assertEquals(-1, sample.pressure, 0);
+        }
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        Assert.assertEquals(0, SampleDecoder.decode(SampleEncoder.encode(new WorkoutSample[0]), 1).length);
+    }
+
+    @Test
+    public void testStreaming() throws IOException {
+        WorkoutSample[] samples = createTrack(100, true);
+        SampleDecoder decoder = new SampleDecoder(new ByteArrayInputStream(SampleEncoder.encode(samples)), 1);
+        Assert.assertEquals(100, decoder.getCount());
+        int count = 0;
+        while (decoder.hasNext()) {
+            Assert.assertEquals(samples[count].absoluteTime, decoder.next().absoluteTime);
+            count++;
+        }
+        Assert.assertEquals(100, count);
+    }
+
+    @Test
+    public void testSize() {
+        WorkoutSample[] samples = createTrack(3600, true);
+        double bytesPerSample = (double) SampleEncoder.encode(samples).length / samples.length;
+        // A row in workout_sample needs more than 70 bytes
+        Assert.assertTrue("Bytes per sample: " + bytesPerSample, bytesPerSample < 8);
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownVersion() throws IOException {
+        byte[] data = SampleEncoder.encode(createTrack(10, true));
+        data[0] = 100;
+        SampleDecoder.decode(data, 1);
+    }
+
+    @Test(expected = IOException.class)
+    public void testCountLargerThanColumns() throws IOException {
+        // Would allocate an array for two billion samples if the count was trusted
+        SampleDecoder.decode(createHeader(Integer.MAX_VALUE, 10), 1);
+    }
+
+    @Test(expected = IOException.class)
+    public void testColumnsLongerThanData() throws IOException {
+        SampleDecoder.decode(createHeader(10, Integer.MAX_VALUE), 1);
+    }
+
+    /**
+     * Blob with the given header and no column data
+     */
+    private static byte[] createHeader(long count, long columnLength) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write(VERSION);
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(output)) {
+            writeVarint(deflater, count);
+            for (int i = 0; i < 8; i++) {
+                writeVarint(deflater, columnLength);
+            }
+        }
+        return output.toByteArray();
+    }
+
+    private static void writeVarint(OutputStream output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.write((int) value);
+    }
+
+    /**
+     * One sample per second of a run with noisy GPS positions
+     */
+    private static WorkoutSample[] createTrack(int count, boolean pressure) {
+        Random random = new Random(1);
+        WorkoutSample[] samples = new WorkoutSample[count];
+        double lat = 52.5;
+        double lon = 13.4;
+        double elevation = 40;
+        for (int i = 0; i < count; i++) {
+            lat += 0.00002 + random.nextGaussian() * 0.000005;
+            lon += 0.00001 + random.nextGaussian() * 0.000005;
+            elevation += random.nextGaussian() * 0.3;
+            WorkoutSample sample = new WorkoutSample();
+            sample.id = 1580000000000L + i + 1;
+            sample.absoluteTime = 1580000000000L + i * 1000L;
+            sample.relativeTime = i * 1000L;
+            sample.lat = lat;
+            sample.lon = lon;
+            sample.elevation = elevation;
+            sample.speed = 3 + random.nextGaussian() * 0.2;
+            sample.pressure = pressure ? (float) (1013 + random.nextGaussian() * 0.05) : -1;
+            samples[i] = sample;
+        }
+        return samples;
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import de.tadris.fitness.recording.pipeline.MinDistanceStage;
+import de.tadris.fitness.recording.pipeline.PipelineStage;
+import de.tadris.fitness.recording.pipeline.SamplePipeline;
+import de.tadris.fitness.recording.pipeline.SampleRecord;
+
+public class SamplePipelineTest {
+
+    private final List<Long> active = new CopyOnWriteArrayList<>();
+    private final List<Long> persisted = new CopyOnWriteArrayList<>();
+    private volatile boolean pressureAvailable = false;
+
+    private SamplePipeline createPipeline(CountDownLatch activityCheck) {
+        return new SamplePipeline()
+                .addStage("activity", record -> {
+                    active.add(record.time);
+                    activityCheck.countDown();
+                    return PipelineStage.CONTINUE;
+                })
+                .addStage("pressure", record -> {
+                    if (record.time == 1 && !pressureAvailable) {
+                        return PipelineStage.WAIT;
+                    }
+                    return record.time == 3 ? PipelineStage.DROP : PipelineStage.CONTINUE;
+                })
+                .addStage("persist", record -> {
+                    persisted.add(record.time);
+                    return PipelineStage.CONTINUE;
+                });
+    }
+
+    private static SampleRecord record(long time) {
+        SampleRecord record = new SampleRecord();
+        record.time = time;
+        return record;
+    }
+
+    private static SampleRecord record(long time, double lat, double lon) {
+        SampleRecord record = record(time);
+        record.lat = lat;
+        record.lon = lon;
+        return record;
+    }
+
+    @Test
+    public void testRecordsPassEarlierStagesWhileOneWaits() throws InterruptedException {
+        CountDownLatch activityCheck = new CountDownLatch(4);
+        SamplePipeline pipeline = createPipeline(activityCheck);
+        for (long time = 1; time <= 4; time++) {
+            pipeline.submit(record(time));
+        }
+
+        Assert.assertTrue(activityCheck.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(1L, 2L, 3L, 4L), active);
+        Assert.assertTrue(persisted.isEmpty());
+
+        pressureAvailable = true;
+        CountDownLatch finished = new CountDownLatch(1);
+        pipeline.finish(finished::countDown);
+        Assert.assertTrue(finished.await(5, TimeUnit.SECONDS));
+
+        Assert.assertEquals(Arrays.asList(1L, 2L, 4L), persisted);
+        Assert.assertEquals(Arrays.asList(1L, 2L, 3L, 4L), active);
+    }
+
+    @Test
+    public void testDedupeWhileRecordWaits() throws InterruptedException {
+        CountDownLatch dedupeCheck = new CountDownLatch(3);
+        MinDistanceStage dedupe = new MinDistanceStage(10);
+        SamplePipeline pipeline = new SamplePipeline()
+                .addStage("dedupe", record -> {
+                    int result = dedupe.process(record);
+                    dedupeCheck.countDown();
+                    return result;
+                })
+                .addStage("pressure", record -> pressureAvailable ? PipelineStage.CONTINUE : PipelineStage.WAIT)
+                .addStage("persist", record -> {
+                    persisted.add(record.time);
+                    return PipelineStage.CONTINUE;
+                });
+        // The second fix is 1m away from the first one, the third one 100m
+        pipeline.submit(record(1, 50, 8));
+        pipeline.submit(record(2, 50.000009, 8));
+        pipeline.submit(record(3, 50.0009, 8));
+
+        Assert.assertTrue(dedupeCheck.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(persisted.isEmpty());
+
+        pressureAvailable = true;
+        CountDownLatch finished = new CountDownLatch(1);
+        pipeline.finish(finished::countDown);
+        Assert.assertTrue(finished.await(5, TimeUnit.SECONDS));
+
+        Assert.assertEquals(Arrays.asList(1L, 3L), persisted);
+    }
+
+    @Test
+    public void testFinishDoesNotBlock() throws InterruptedException {
+        CountDownLatch activityCheck = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SamplePipeline pipeline = new SamplePipeline().addStage("slow", record -> {
+            activityCheck.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            persisted.add(record.time);
+            return PipelineStage.CONTINUE;
+        });
+        pipeline.submit(record(1));
+        Assert.assertTrue(activityCheck.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch finished = new CountDownLatch(1);
+        pipeline.finish(finished::countDown);
+        Assert.assertEquals(1, finished.getCount());
+
+        release.countDown();
+        Assert.assertTrue(finished.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(1L), persisted);
+    }
+
+}
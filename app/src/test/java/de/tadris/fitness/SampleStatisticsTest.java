@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.tadris.fitness.data.WorkoutSample;
+import de.tadris.fitness.data.WorkoutType;
+import de.tadris.fitness.recording.SampleStatistics;
+import de.tadris.fitness.util.ElevationSmoother;
+
+public class SampleStatisticsTest {
+
+    @Test
+    public void testMatchesFullScan() {
+        Random random = new Random(1);
+        List<WorkoutSample> samples = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            WorkoutSample sample = new WorkoutSample();
+            sample.absoluteTime = i * 1000L;
+            sample.lat = 50 + i * 0.0001;
+            sample.lon = 8;
+            sample.elevation = 100 + 20 * Math.sin(i / 30d) + random.nextGaussian();
+            sample.speed = random.nextDouble() * 5;
+            samples.add(sample);
+        }
+        SampleStatistics statistics = SampleStatistics.of(WorkoutType.RUNNING, samples);
+
+        double topSpeed = 0, elevationSum = 0;
+        for (WorkoutSample sample : samples) {
+            topSpeed = Math.max(topSpeed, sample.speed);
+            elevationSum += sample.elevation;
+        }
+
+        Assert.assertEquals(500, statistics.getCount());
+        Assert.assertEquals(topSpeed, statistics.getTopSpeed(), 0);
+        Assert.assertEquals(elevationSum / 500, statistics.getAverageElevation(), 1e-6);
+        Assert.assertEquals(499 * 0.0001 * 111319.49, statistics.getDistance(), 1);
+    }
+
+    @Test
+    public void testClimbMatchesSaver() {
+        Random random = new Random(2);
+        SampleStatistics statistics = new SampleStatistics(WorkoutType.CYCLING);
+        List<WorkoutSample> samples = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            WorkoutSample sample = new WorkoutSample();
+            sample.absoluteTime = i * 1000L;
+            sample.elevation = 100 + 20 * Math.sin(i / 30d) + 2 * random.nextGaussian();
+            samples.add(sample);
+            statistics.add(sample);
+
+            // Every intermediate value is what saving the workout at this point would store
+            List<WorkoutSample> copy = new ArrayList<>();
+            for (WorkoutSample value : samples) {
+                WorkoutSample sampleCopy = new WorkoutSample();
+                sampleCopy.elevation = value.elevation;
+                copy.add(sampleCopy);
+            }
+            ElevationSmoother.Climb climb = ElevationSmoother.forWorkoutType(WorkoutType.CYCLING).smooth(copy);
+            Assert.assertEquals(climb.ascent, statistics.getAscent(), 1e-6);
+            Assert.assertEquals(climb.descent, statistics.getDescent(), 1e-6);
+        }
+        Assert.assertTrue(statistics.getAscent() > 20);
+    }
+
+    @Test
+    public void testIgnoresSamplesWithSameTime() {
+        List<WorkoutSample> samples = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            WorkoutSample sample = new WorkoutSample();
+            sample.absoluteTime = 1000;
+            sample.lat = 50 + i;
+            samples.add(sample);
+        }
+        SampleStatistics statistics = SampleStatistics.of(WorkoutType.RUNNING, samples);
+        Assert.assertEquals(1, statistics.getCount());
+        Assert.assertEquals(0, statistics.getDistance(), 0);
+    }
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import de.tadris.fitness.data.WorkoutLocation;
+import de.tadris.fitness.data.WorkoutLocations;
+import de.tadris.fitness.data.WorkoutSample;
+
+/**
+ * Runs the queries of the location index on an SQLite database with R*Tree module
+ */
+public class WorkoutLocationsTest {
+
+    private static final double LAT = 52.5;
+    private static final double LON = 13.4;
+
+    /**
+     * Meters per degree of latitude and of longitude at {@link #LAT}
+     */
+    private static final double METERS_LAT = 111195.08;
+    private static final double METERS_LON = METERS_LAT * Math.cos(Math.toRadians(LAT));
+
+    private Connection connection;
+
+    @Before
+    public void setup() throws IOException, SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        QueryPlanTest.createSchema(connection);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : WorkoutLocations.CREATE_STATEMENTS) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void testLocationOfSamples() {
+        WorkoutLocation location = WorkoutLocation.of(Arrays.asList(
+                createSample(1, 2), createSample(3, -1), createSample(0, 5), createSample(2, 2.5)));
+        Assert.assertEquals(0, location.minLat, 0);
+        Assert.assertEquals(3, location.maxLat, 0);
+        Assert.assertEquals(-1, location.minLon, 0);
+        Assert.assertEquals(5, location.maxLon, 0);
+        Assert.assertEquals(1, location.startLat, 0);
+        Assert.assertEquals(2, location.startLon, 0);
+        Assert.assertEquals(2, location.endLat, 0);
+        Assert.assertEquals(2.5, location.endLon, 0);
+
+        Assert.assertNull(WorkoutLocation.of(Collections.<WorkoutSample>emptyList()));
+    }
+
+    @Test
+    public void testViewport() throws SQLException {
+        insertWorkout(1, createSample(LAT, LON), createSample(LAT + 0.01, LON + 0.01));
+        insertWorkout(2, createSample(LAT + 1, LON), createSample(LAT + 1.01, LON + 0.01));
+        insertWorkout(3, createSample(LAT - 0.5, LON), createSample(LAT + 0.5, LON));
+
+        long[] ids = query(WorkoutLocations.VIEWPORT_QUERY,
+                WorkoutLocations.getViewportArgs(LAT + 0.005, LON - 0.1, LAT + 0.1, LON + 0.1));
+        // Newest first
+        Assert.assertArrayEquals(new long[]{3, 1}, ids);
+    }
+
+    @Test
+    public void testViewportAcrossAntimeridian() throws SQLException {
+        insertWorkout(1, createSample(LAT, 179.5));
+        insertWorkout(2, createSample(LAT, LON));
+        insertWorkout(3, createSample(LAT, -179.5));
+        insertWorkout(4, createSample(LAT, 178.5), createSample(LAT, 179.5));
+
+        long[] ids = query(WorkoutLocations.getViewportSql(179, -179),
+                WorkoutLocations.getViewportArgs(LAT - 1, 179, LAT + 1, -179));
+        Assert.assertArrayEquals(new long[]{4, 3, 1}, ids);
+    }
+
+    @Test
+    public void testMissingWorkoutsWithSamples() throws SQLException {
+        insertWorkout(1, createSample(LAT, LON));
+        execute("INSERT INTO workout_sample_blob VALUES (1, 1, x'00')", new Object[0]);
+        execute("INSERT INTO workout_sample_blob VALUES (2, 0, x'00')", new Object[0]);
+        execute("INSERT INTO workout_sample_blob VALUES (3, 5, x'00')", new Object[0]);
+
+        Assert.assertArrayEquals(new long[]{3}, query(WorkoutLocations.MISSING_QUERY, new Object[0]));
+    }
+
+    @Test
+    public void testStartingNear() throws SQLException {
+        insertWorkout(1, createSample(LAT, LON + 300 / METERS_LON));
+        insertWorkout(2, createSample(LAT + 2000 / METERS_LAT, LON));
+        insertWorkout(3, createSample(LAT, LON));
+        insertWorkout(4, createSample(LAT + 600 / METERS_LAT, LON + 600 / METERS_LON));
+        insertWorkout(5, createSample(LAT + 950 / METERS_LAT, LON));
+
+        long[] ids = query(WorkoutLocations.STARTING_NEAR_QUERY, WorkoutLocations.getStartingNearArgs(LAT, LON, 1000));
+        // Nearest first, 4 is inside the box but about 850 m away
+        Assert.assertArrayEquals(new long[]{3, 1, 4, 5}, ids);
+
+        ids = query(WorkoutLocations.STARTING_NEAR_QUERY, WorkoutLocations.getStartingNearArgs(LAT, LON, 800));
+        Assert.assertArrayEquals(new long[]{3, 1}, ids);
+    }
+
+    @Test
+    public void testDeleteRemovesLocation() throws SQLException {
+        insertWorkout(1, createSample(LAT, LON));
+        insertWorkout(2, createSample(LAT, LON));
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM workout WHERE id = 1");
+        }
+        Assert.assertArrayEquals(new long[]{2}, query("SELECT id FROM workout_bounds", new Object[0]));
+        Assert.assertArrayEquals(new long[]{2}, query("SELECT id FROM workout_endpoints", new Object[0]));
+    }
+
+    private void insertWorkout(long id, WorkoutSample... samples) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO workout " +
+                "(id, start, end, duration, pauseDuration, comment, length, avgSpeed, topSpeed, avgPace, workoutType, ascent, descent, calorie, edited) " +
+                "VALUES (?, ?, 0, 0, 0, '', 0, 0, 0, 0, 'running', 0, 0, 0, 0)")) {
+            statement.setLong(1, id);
+            statement.setLong(2, id * 1000);
+            statement.executeUpdate();
+        }
+        WorkoutLocation location = WorkoutLocation.of(Arrays.asList(samples));
+        execute(WorkoutLocations.INSERT_BOUNDS, WorkoutLocations.getBoundsArgs(id, location));
+        execute(WorkoutLocations.INSERT_ENDPOINTS, WorkoutLocations.getEndpointsArgs(id, location));
+    }
+
+    private void execute(String sql, Object[] args) throws SQLException {
+        try (PreparedStatement statement = prepare(sql, args)) {
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * @return the first column of all result rows
+     */
+    private long[] query(String sql, Object[] args) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (PreparedStatement statement = prepare(sql, args);
+             ResultSet result = statement.executeQuery()) {
+            while (result.next()) {
+                ids.add(result.getLong(1));
+            }
+        }
+        long[] array = new long[ids.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = ids.get(i);
+        }
+        return array;
+    }
+
+    private PreparedStatement prepare(String sql, Object[] args) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        for (int i = 0; i < args.length; i++) {
+            statement.setObject(i + 1, args[i]);
+        }
+        return statement;
+    }
+
+    private static WorkoutSample createSample(double lat, double lon) {
+        WorkoutSample sample = new WorkoutSample();
+        sample.lat = lat;
+        sample.lon = lon;
+        return sample;
+    }
+
+}
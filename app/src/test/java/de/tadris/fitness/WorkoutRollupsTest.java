@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.tadris.fitness.data.WorkoutRollup;
+import de.tadris.fitness.data.WorkoutRollups;
+
+/**
+ * Checks that the rollup triggers produce the same totals as a fresh scan of the workout table
+ */
+public class WorkoutRollupsTest {
+
+    private static final String[] TYPES = {"running", "cycling", "hiking", null};
+
+    /**
+     * Wednesday, 11 March 2020 12:00 UTC, the same week in every time zone
+     */
+    private static final long WEDNESDAY = 1583928000000L;
+
+    private Connection connection;
+
+    @Before
+    public void setup() throws IOException, SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        QueryPlanTest.createSchema(connection);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : WorkoutRollups.getTriggers()) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void testTriggersMatchScan() throws SQLException {
+        Random random = new Random(42);
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            insertWorkout(id, WEDNESDAY + (long) (random.nextDouble() * 1000L * 86400 * 1000), TYPES[random.nextInt(TYPES.length)],
+                    random.nextInt(50000), random.nextInt(10000000), random.nextDouble() * 500, random.nextInt(2000));
+            ids.add(id);
+        }
+        try (PreparedStatement update = connection.prepareStatement("UPDATE workout SET start = ?, workoutType = ?, ascent = ? WHERE id = ?")) {
+            for (int i = 0; i < 200; i++) {
+                update.setLong(1, WEDNESDAY + (long) (random.nextDouble() * 1000L * 86400 * 1000));
+                update.setString(2, TYPES[random.nextInt(TYPES.length)]);
+                update.setDouble(3, random.nextDouble() * 300);
+                update.setLong(4, ids.get(random.nextInt(ids.size())));
+                update.executeUpdate();
+            }
+        }
+        for (int i = 0; i < 200; i++) {
+            deleteWorkout(ids.remove(random.nextInt(ids.size())));
+        }
+
+        WorkoutRollup[] stored = getRollups("SELECT * FROM workout_rollup");
+        Assert.assertTrue(stored.length > 0);
+        Assert.assertEquals(0, WorkoutRollups.countDifferences(stored, getRollups(WorkoutRollups.SCAN_QUERY)));
+    }
+
+    @Test
+    public void testBuckets() throws SQLException {
+        insertWorkout(1, WEDNESDAY, "running", 1000, 600000, 10, 100);
+        insertWorkout(2, WEDNESDAY + 3 * 86400 * 1000, "running", 2000, 1200000, 20, 200);
+
+        assertRollup(WorkoutRollups.PERIOD_WEEK, "2020-03-09", 2, 3000);
+        assertRollup(WorkoutRollups.PERIOD_MONTH, "2020-03", 2, 3000);
+        assertRollup(WorkoutRollups.PERIOD_YEAR, "2020", 2, 3000);
+        assertRollup(WorkoutRollups.PERIOD_TOTAL, "", 2, 3000);
+    }
+
+    @Test
+    public void testDeleteRemovesEmptyRollups() throws SQLException {
+        insertWorkout(1, WEDNESDAY, null, 1000, 600000, 10, 100);
+        deleteWorkout(1);
+        Assert.assertEquals(0, getRollups("SELECT * FROM workout_rollup").length);
+    }
+
+    @Test
+    public void testCountDifferences() {
+        WorkoutRollup a = createRollup("2020-03", 1, 1000);
+        WorkoutRollup b = createRollup("2020-04", 2, 3000);
+        Assert.assertEquals(0, WorkoutRollups.countDifferences(new WorkoutRollup[]{a, b}, new WorkoutRollup[]{b, a}));
+        Assert.assertEquals(1, WorkoutRollups.countDifferences(new WorkoutRollup[]{a}, new WorkoutRollup[]{a, b}));
+        Assert.assertEquals(1, WorkoutRollups.countDifferences(new WorkoutRollup[]{a, b}, new WorkoutRollup[]{a}));
+        Assert.assertEquals(1, WorkoutRollups.countDifferences(new WorkoutRollup[]{a, b}, new WorkoutRollup[]{a, createRollup("2020-04", 2, 2000)}));
+    }
+
+    private void assertRollup(String period, String bucket, int count, long length) throws SQLException {
+        WorkoutRollup[] rollups = getRollups("SELECT * FROM workout_rollup WHERE period = '" + period + "'");
+        Assert.assertEquals(1, rollups.length);
+        Assert.assertEquals(bucket, rollups[0].bucket);
+        Assert.assertEquals(count, rollups[0].count);
+        Assert.assertEquals(length, rollups[0].length);
+    }
+
+    private void insertWorkout(long id, long start, String type, int length, long duration, double ascent, int calorie) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO workout " +
+                "(id, start, end, duration, pauseDuration, comment, length, avgSpeed, topSpeed, avgPace, workoutType, ascent, descent, calorie, edited) " +
+                "VALUES (?, ?, ?, ?, 0, '', ?, 0, 0, 0, ?, ?, 0, ?, 0)")) {
+            statement.setLong(1, id);
+            statement.setLong(2, start);
+            statement.setLong(3, start + duration);
+            statement.setLong(4, duration);
+            statement.setInt(5, length);
+            statement.setString(6, type);
+            statement.setDouble(7, ascent);
+            statement.setInt(8, calorie);
+            statement.executeUpdate();
+        }
+    }
+
+    private void deleteWorkout(long id) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM workout WHERE id = " + id);
+        }
+    }
+
+    private WorkoutRollup[] getRollups(String query) throws SQLException {
+        List<WorkoutRollup> rollups = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(query)) {
+            while (result.next()) {
+                WorkoutRollup rollup = new WorkoutRollup();
+                rollup.period = result.getString("period");
+                rollup.bucket = result.getString("bucket");
+                rollup.workoutTypeId = result.getString("workoutType");
+                rollup.count = result.getInt("count");
+                rollup.length = result.getLong("length");
+                rollup.duration = result.getLong("duration");
+                rollup.ascent = result.getDouble("ascent");
+                rollup.calorie = result.getLong("calorie");
+                rollups.add(rollup);
+            }
+        }
+        return rollups.toArray(new WorkoutRollup[0]);
+    }
+
+    private static WorkoutRollup createRollup(String bucket, int count, long length) {
+        WorkoutRollup rollup = new WorkoutRollup();
+        rollup.period = WorkoutRollups.PERIOD_MONTH;
+        rollup.bucket = bucket;
+        rollup.count = count;
+        rollup.length = length;
+        return rollup;
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.benchmark;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutSample;
+import de.tadris.fitness.data.WorkoutType;
+import de.tadris.fitness.recording.pipeline.SampleRecord;
+import de.tadris.fitness.recording.replay.SyntheticReplaySource;
+import de.tadris.fitness.util.GeoidGrid;
+
+/**
+ * Deterministic test data for the benchmarks
+ */
+public class BenchmarkSamples {
+
+    public static final long START = 1577836800000L; // 2020-01-01
+    private static final long INTERVAL = 1000;
+
+    private BenchmarkSamples() {
+    }
+
+    public static List<WorkoutSample> create(int count) {
+        SyntheticReplaySource source = new SyntheticReplaySource(START, (count - 1) * INTERVAL, INTERVAL, 3, 42);
+        List<WorkoutSample> samples = new ArrayList<>(count);
+        SampleRecord record;
+        while ((record = source.next()) != null) {
+            WorkoutSample sample = new WorkoutSample();
+            sample.id = samples.size() + 1;
+            sample.workoutId = 1;
+            sample.lat = record.lat;
+            sample.lon = record.lon;
+            sample.elevation = record.elevation;
+            sample.speed = record.speed;
+            sample.absoluteTime = record.time;
+            sample.relativeTime = record.time - START;
+            samples.add(sample);
+        }
+        return samples;
+    }
+
+    public static Workout createWorkout(List<WorkoutSample> samples) {
+        Workout workout = new Workout();
+        workout.id = 1;
+        workout.setWorkoutType(WorkoutType.RUNNING);
+        workout.start = START;
+        workout.end = samples.get(samples.size() - 1).absoluteTime;
+        workout.duration = workout.end - workout.start;
+        workout.comment = "Benchmark";
+        return workout;
+    }
+
+    /**
+     * Copies the samples, for benchmarks of code that modifies them
+     */
+    public static List<WorkoutSample> copy(List<WorkoutSample> samples) {
+        List<WorkoutSample> copy = new ArrayList<>(samples.size());
+        for (WorkoutSample sample : samples) {
+            WorkoutSample sampleCopy = new WorkoutSample();
+            sampleCopy.id = sample.id;
+            sampleCopy.workoutId = sample.workoutId;
+            sampleCopy.lat = sample.lat;
+            sampleCopy.lon = sample.lon;
+            sampleCopy.elevation = sample.elevation;
+            sampleCopy.speed = sample.speed;
+            sampleCopy.pressure = sample.pressure;
+            sampleCopy.absoluteTime = sample.absoluteTime;
+            sampleCopy.relativeTime = sample.relativeTime;
+            copy.add(sampleCopy);
+        }
+        return copy;
+    }
+
+    /**
+     * Loads the compiled geoid grid, its path is passed by the build as system property
+     */
+    public static GeoidGrid loadGeoidGrid() throws IOException {
+        try (InputStream input = new FileInputStream(System.getProperty("geoids"))) {
+            return GeoidGrid.read(input);
+        }
+    }
+
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.data;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import de.tadris.fitness.benchmark.BenchmarkSamples;
+
+/**
+ * Write and read throughput of the database under each {@link DatabaseProfile}, on a database
+ * file with the app's tables. Room isn't available on the JVM, so the statements that Room
+ * would generate are run through JDBC against the SQLite build of the driver, not the one of
+ * Android. Like in the app, the PRAGMAs of the profile are only applied to the writing
+ * connection, reads use a second connection with the defaults.
+ *
+ * - insertWorkout: one transaction with a workout and its samples as blob, see {@link SampleStorage#setSamples}
+ * - insertJournal: the recording journal, a transaction per 30 samples
+ * - readSamples: the sample blob of a workout, decoded
+ *
+ * Both inserts end with the checkpoint the app runs after saving a workout.
+ */
+@State(Scope.Benchmark)
+public class DatabaseProfileBenchmark {
+
+    private static final int JOURNAL_BATCH = 30;
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE workout (id INTEGER NOT NULL, start INTEGER NOT NULL, end INTEGER NOT NULL, " +
+                    "duration INTEGER NOT NULL, pauseDuration INTEGER NOT NULL, comment TEXT, length INTEGER NOT NULL, " +
+                    "avgSpeed REAL NOT NULL, topSpeed REAL NOT NULL, avgPace REAL NOT NULL, workoutType TEXT, " +
+                    "ascent REAL NOT NULL, descent REAL NOT NULL, calorie INTEGER NOT NULL, edited INTEGER NOT NULL, " +
+                    "PRIMARY KEY(id))",
+            "CREATE TABLE workout_sample (id INTEGER NOT NULL, workout_id INTEGER NOT NULL, " +
+                    "absoluteTime INTEGER NOT NULL, relativeTime INTEGER NOT NULL, lat REAL NOT NULL, lon REAL NOT NULL, " +
+                    "elevation REAL NOT NULL, speed REAL NOT NULL, pressure REAL NOT NULL DEFAULT -1, PRIMARY KEY(id), " +
+                    "FOREIGN KEY(workout_id) REFERENCES workout(id) ON DELETE CASCADE)",
+            "CREATE INDEX index_workout_sample_workout_id ON workout_sample (workout_id)",
+            "CREATE TABLE workout_sample_blob (workout_id INTEGER NOT NULL, count INTEGER NOT NULL, data BLOB, " +
+                    "PRIMARY KEY(workout_id), FOREIGN KEY(workout_id) REFERENCES workout(id) ON DELETE CASCADE)",
+            "CREATE TABLE recording (id INTEGER NOT NULL PRIMARY KEY, start INTEGER NOT NULL, duration INTEGER NOT NULL, " +
+                    "pauseDuration INTEGER NOT NULL, workoutType TEXT, lastUpdate INTEGER NOT NULL)",
+            "CREATE TABLE recording_sample (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, recording_id INTEGER NOT NULL, " +
+                    "absoluteTime INTEGER NOT NULL, relativeTime INTEGER NOT NULL, lat REAL NOT NULL, lon REAL NOT NULL, " +
+                    "elevation REAL NOT NULL, speed REAL NOT NULL, pressure REAL NOT NULL, " +
+                    "FOREIGN KEY (recording_id) REFERENCES recording(id) ON DELETE CASCADE)",
+            "CREATE INDEX index_recording_sample_recording_id ON recording_sample (recording_id)",
+    };
+
+    @Param({"default", "performance"})
+    public String profile;
+
+    @Param({"1000", "10000", "100000"})
+    public int sampleCount;
+
+    private File file;
+    private Connection connection;
+    private Connection readConnection;
+    private List<WorkoutSample> samples;
+    private long nextId = 1;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, SQLException {
+        samples = BenchmarkSamples.create(sampleCount);
+        file = File.createTempFile("fito-track-benchmark", ".db");
+        connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        DatabaseProfile databaseProfile = DatabaseProfile.getByName(profile);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA foreign_keys = ON");
+            if (databaseProfile.isWriteAheadLogging()) {
+                statement.execute("PRAGMA journal_mode = WAL");
+            }
+            for (String pragma : databaseProfile.getPragmas()) {
+                statement.execute(pragma);
+            }
+            for (String sql : SCHEMA) {
+                statement.execute(sql);
+            }
+        }
+        readConnection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        // The workout read by readSamples()
+        insertWorkout();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        readConnection.close();
+        connection.close();
+        for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+            new File(file.getAbsolutePath() + suffix).delete();
+        }
+    }
+
+    @Benchmark
+    public long insertWorkout() throws SQLException {
+        long workoutId = nextId++;
+        connection.setAutoCommit(false);
+        try (PreparedStatement workout = connection.prepareStatement("INSERT INTO workout " +
+                "(id, start, end, duration, pauseDuration, comment, length, avgSpeed, topSpeed, avgPace, workoutType, ascent, descent, calorie, edited) " +
+                "VALUES (?, ?, ?, ?, 0, 'Benchmark', 0, 0, 0, 0, 'running', 0, 0, 0, 0)");
+             PreparedStatement blob = connection.prepareStatement("INSERT OR REPLACE INTO workout_sample_blob " +
+                     "(workout_id, count, data) VALUES (?, ?, ?)");
+             PreparedStatement deleteRows = connection.prepareStatement("DELETE FROM workout_sample WHERE workout_id = ?")) {
+            workout.setLong(1, workoutId);
+            workout.setLong(2, BenchmarkSamples.START);
+            workout.setLong(3, BenchmarkSamples.START + sampleCount * 1000L);
+            workout.setLong(4, sampleCount * 1000L);
+            workout.executeUpdate();
+            blob.setLong(1, workoutId);
+            blob.setInt(2, samples.size());
+            blob.setBytes(3, SampleEncoder.encode(samples.toArray(new WorkoutSample[0])));
+            blob.executeUpdate();
+            deleteRows.setLong(1, workoutId);
+            deleteRows.executeUpdate();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        checkpoint();
+        return workoutId;
+    }
+
+    @Benchmark
+    public long insertJournal() throws SQLException {
+        long recordingId = nextId++;
+        try (PreparedStatement recording = connection.prepareStatement("INSERT INTO recording " +
+                "(id, start, duration, pauseDuration, workoutType, lastUpdate) VALUES (?, ?, 0, 0, 'running', 0)");
+             PreparedStatement sample = connection.prepareStatement("INSERT INTO recording_sample " +
+                     "(recording_id, absoluteTime, relativeTime, lat, lon, elevation, speed, pressure) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement update = connection.prepareStatement("UPDATE recording SET duration = ?, lastUpdate = ? WHERE id = ?")) {
+            recording.setLong(1, recordingId);
+            recording.setLong(2, BenchmarkSamples.START);
+            recording.executeUpdate();
+            for (int start = 0; start < samples.size(); start += JOURNAL_BATCH) {
+                connection.setAutoCommit(false);
+                int end = Math.min(samples.size(), start + JOURNAL_BATCH);
+                for (WorkoutSample value : samples.subList(start, end)) {
+                    sample.setLong(1, recordingId);
+                    bindSample(sample, 2, value);
+                    sample.addBatch();
+                }
+                sample.executeBatch();
+                update.setLong(1, samples.get(end - 1).relativeTime);
+                update.setLong(2, samples.get(end - 1).absoluteTime);
+                update.setLong(3, recordingId);
+                update.executeUpdate();
+                connection.commit();
+                connection.setAutoCommit(true);
+            }
+        }
+        checkpoint();
+        return recordingId;
+    }
+
+    @Benchmark
+    public double readSamples() throws SQLException, IOException {
+        double sum = 0;
+        try (PreparedStatement query = readConnection.prepareStatement("SELECT * FROM workout_sample_blob WHERE workout_id = ?")) {
+            query.setLong(1, 1);
+            try (ResultSet result = query.executeQuery()) {
+                result.next();
+                for (WorkoutSample sample : SampleDecoder.decode(result.getBytes("data"), 1)) {
+                    sum += sample.lat + sample.elevation;
+                }
+            }
+        }
+        return sum;
+    }
+
+    private void checkpoint() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA wal_checkpoint(PASSIVE)");
+        }
+    }
+
+    private static void bindSample(PreparedStatement statement, int index, WorkoutSample sample) throws SQLException {
+        statement.setLong(index, sample.absoluteTime);
+        statement.setLong(index + 1, sample.relativeTime);
+        statement.setDouble(index + 2, sample.lat);
+        statement.setDouble(index + 3, sample.lon);
+        statement.setDouble(index + 4, sample.elevation);
+        statement.setDouble(index + 5, sample.speed);
+        statement.setDouble(index + 6, sample.pressure);
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.data;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+
+import de.tadris.fitness.benchmark.BenchmarkSamples;
+
+/**
+ * Packing the samples of a workout into a blob and reading them back, as done when a workout
+ * is saved and opened
+ */
+@State(Scope.Benchmark)
+public class SampleEncoderBenchmark {
+
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    public int sampleCount;
+
+    private WorkoutSample[] samples;
+    private byte[] blob;
+
+    @Setup
+    public void setup() {
+        samples = BenchmarkSamples.create(sampleCount).toArray(new WorkoutSample[0]);
+        blob = SampleEncoder.encode(samples);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return SampleEncoder.encode(samples);
+    }
+
+    @Benchmark
+    public WorkoutSample[] decode() throws IOException {
+        return SampleDecoder.decode(blob, 1);
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.export;
+
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import de.tadris.fitness.benchmark.BenchmarkSamples;
+import de.tadris.fitness.data.WorkoutSample;
+
+/**
+ * Writing and reading a backup the same way the BackupController and RestoreController do
+ */
+@State(Scope.Benchmark)
+public class FitoTrackDataContainerBenchmark {
+
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    public int sampleCount;
+
+    private FitoTrackDataContainer container;
+    private byte[] xml;
+
+    @Setup
+    public void setup() throws IOException {
+        List<WorkoutSample> samples = BenchmarkSamples.create(sampleCount);
+        container = new FitoTrackDataContainer(1, Collections.singletonList(BenchmarkSamples.createWorkout(samples)), samples);
+        xml = new XmlMapper().writeValueAsBytes(container);
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        return new XmlMapper().writeValueAsBytes(container);
+    }
+
+    @Benchmark
+    public FitoTrackDataContainer read() throws IOException {
+        return new XmlMapper().readValue(xml, FitoTrackDataContainer.class);
+    }
+
+}
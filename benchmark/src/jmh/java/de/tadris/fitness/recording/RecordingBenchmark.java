@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import de.tadris.fitness.benchmark.BenchmarkSamples;
+import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutSample;
+import de.tadris.fitness.data.WorkoutType;
+import de.tadris.fitness.recording.pipeline.PipelineStage;
+import de.tadris.fitness.recording.pipeline.SamplePipeline;
+import de.tadris.fitness.recording.replay.LocationReplayer;
+import de.tadris.fitness.recording.replay.SyntheticReplaySource;
+import de.tadris.fitness.util.AltitudeCorrection;
+
+/**
+ * Recording and saving long workouts. {@link #record()} replays a synthetic track of one fix per
+ * second through the recorder's location stages into the sample buffer and the running
+ * statistics, {@link #save()} runs the saver's computation on the recorded samples.
+ * The recorder's activity, pressure and journal stages need a device and are not part of it.
+ * Run with -prof gc for the allocation per fix.
+ */
+@State(Scope.Benchmark)
+public class RecordingBenchmark {
+
+    private static final long HOUR = 60 * 60 * 1000;
+
+    @Param({"1", "10", "24"})
+    public int hours;
+
+    private List<WorkoutSample> recorded;
+    private SampleStatistics recordedStatistics;
+    private AltitudeCorrection correction;
+    private WorkoutSaver saver;
+
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+        SampleBuffer<WorkoutSample> samples = new SampleBuffer<>();
+        recordedStatistics = new SampleStatistics(WorkoutType.RUNNING);
+        replay(samples, recordedStatistics);
+        recorded = new ArrayList<>(samples.snapshot());
+        correction = new AltitudeCorrection(BenchmarkSamples.loadGeoidGrid());
+    }
+
+    @Setup(Level.Invocation)
+    public void createSaver() {
+        List<WorkoutSample> copy = BenchmarkSamples.copy(recorded);
+        Workout workout = BenchmarkSamples.createWorkout(copy);
+        saver = new WorkoutSaver(workout, copy, recordedStatistics);
+    }
+
+    @Benchmark
+    public SampleBuffer<WorkoutSample> record() throws IOException, InterruptedException {
+        SampleBuffer<WorkoutSample> samples = new SampleBuffer<>();
+        replay(samples, new SampleStatistics(WorkoutType.RUNNING));
+        return samples;
+    }
+
+    @Benchmark
+    public WorkoutSaver save() {
+        saver.calculateValues(correction, 75);
+        return saver;
+    }
+
+    private void replay(SampleBuffer<WorkoutSample> samples, SampleStatistics statistics) throws IOException, InterruptedException {
+        SamplePipeline pipeline = new SamplePipeline();
+        WorkoutRecorder.addLocationStages(pipeline, WorkoutType.RUNNING);
+        pipeline.addStage("persist", record -> {
+            WorkoutSample sample = WorkoutRecorder.createSample(record, record.time - BenchmarkSamples.START);
+            samples.add(sample);
+            statistics.add(sample);
+            return PipelineStage.CONTINUE;
+        });
+
+        SyntheticReplaySource source = new SyntheticReplaySource(BenchmarkSamples.START, hours * HOUR, 1000, 3, 42);
+        new LocationReplayer(source, LocationReplayer.AS_FAST_AS_POSSIBLE, pipeline::submit).replay();
+        CountDownLatch finished = new CountDownLatch(1);
+        pipeline.finish(finished::countDown);
+        finished.await();
+    }
+
+}
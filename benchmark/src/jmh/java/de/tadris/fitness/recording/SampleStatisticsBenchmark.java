@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+import de.tadris.fitness.benchmark.BenchmarkSamples;
+import de.tadris.fitness.data.WorkoutSample;
+import de.tadris.fitness.data.WorkoutType;
+
+/**
+ * Calculating the statistics of existing samples in one pass (distance, speed, pressure,
+ * ascent and descent), done by the WorkoutSaver if no statistics were collected while recording.
+ * The whole computation of the saver is measured by {@link WorkoutSaverBenchmark}.
+ */
+@State(Scope.Benchmark)
+public class SampleStatisticsBenchmark {
+
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    public int sampleCount;
+
+    private List<WorkoutSample> samples;
+
+    @Setup
+    public void setup() {
+        samples = BenchmarkSamples.create(sampleCount);
+    }
+
+    @Benchmark
+    public SampleStatistics statistics() {
+        return SampleStatistics.of(WorkoutType.RUNNING, samples);
+    }
+
+}
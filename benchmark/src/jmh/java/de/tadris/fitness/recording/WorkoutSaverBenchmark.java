@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.recording;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+
+import de.tadris.fitness.benchmark.BenchmarkSamples;
+import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutSample;
+import de.tadris.fitness.util.AltitudeCorrection;
+
+/**
+ * Everything the WorkoutSaver calculates before storing a workout: cleaning the samples,
+ * altitude correction, pressure elevation, smoothed ascent and descent and calories.
+ * The saver modifies the samples, so every invocation gets a fresh copy.
+ */
+@State(Scope.Benchmark)
+public class WorkoutSaverBenchmark {
+
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    public int sampleCount;
+
+    @Param({"false", "true"})
+    public boolean pressure;
+
+    private List<WorkoutSample> samples;
+    private AltitudeCorrection correction;
+    private WorkoutSaver saver;
+
+    @Setup
+    public void setup() throws IOException {
+        samples = BenchmarkSamples.create(sampleCount);
+        if (pressure) {
+            for (WorkoutSample sample : samples) {
+                // Standard atmosphere loses about 0.12 hPa per meter near sea level
+                sample.pressure = (float) (1013.25 - sample.elevation * 0.12);
+            }
+        }
+        correction = new AltitudeCorrection(BenchmarkSamples.loadGeoidGrid());
+    }
+
+    @Setup(Level.Invocation)
+    public void createSaver() {
+        List<WorkoutSample> copy = BenchmarkSamples.copy(samples);
+        Workout workout = BenchmarkSamples.createWorkout(copy);
+        saver = new WorkoutSaver(workout, copy, SampleStatistics.of(workout.getWorkoutType(), copy));
+    }
+
+    @Benchmark
+    public WorkoutSaver calculateValues() {
+        saver.calculateValues(correction, 75);
+        return saver;
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+
+import de.tadris.fitness.benchmark.BenchmarkSamples;
+import de.tadris.fitness.data.WorkoutSample;
+
+/**
+ * Correcting the elevation of every sample, done for every saved workout
+ */
+@State(Scope.Benchmark)
+public class AltitudeCorrectionBenchmark {
+
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    public int sampleCount;
+
+    private AltitudeCorrection correction;
+    private double[] latitude;
+    private double[] longitude;
+    private double[] elevation;
+
+    @Setup
+    public void setup() throws IOException {
+        correction = new AltitudeCorrection(BenchmarkSamples.loadGeoidGrid());
+        List<WorkoutSample> samples = BenchmarkSamples.create(sampleCount);
+        latitude = new double[samples.size()];
+        longitude = new double[samples.size()];
+        elevation = new double[samples.size()];
+        for (int i = 0; i < samples.size(); i++) {
+            latitude[i] = samples.get(i).lat;
+            longitude[i] = samples.get(i).lon;
+        }
+    }
+
+    @Benchmark
+    public double[] correct() {
+        correction.correct(latitude, longitude, elevation);
+        return elevation;
+    }
+
+    /**
+     * Loading the grid, done once per process
+     */
+    @Benchmark
+    public GeoidGrid load() throws IOException {
+        return BenchmarkSamples.loadGeoidGrid();
+    }
+
+}
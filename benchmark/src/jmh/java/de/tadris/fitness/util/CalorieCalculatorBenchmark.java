@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2020 Jannis Scheibe <jannis@tadris.de>
+ *
+ * This file is part of FitoTrack
+ *
+ * FitoTrack is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     FitoTrack is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.tadris.fitness.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.tadris.fitness.data.Workout;
+import de.tadris.fitness.data.WorkoutType;
+
+/**
+ * Calories of many workouts as they are calculated for the workout list and during recording
+ */
+@State(Scope.Benchmark)
+public class CalorieCalculatorBenchmark {
+
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    public int workoutCount;
+
+    private List<Workout> workouts;
+
+    @Setup
+    public void setup() {
+        workouts = new ArrayList<>(workoutCount);
+        for (int i = 0; i < workoutCount; i++) {
+            Workout workout = new Workout();
+            workout.setWorkoutType(i % 2 == 0 ? WorkoutType.RUNNING : WorkoutType.CYCLING);
+            workout.duration = 60000L * (i % 120);
+            workout.avgSpeed = 1 + i % 5;
+            workout.ascent = i % 300;
+            workouts.add(workout);
+        }
+    }
+
+    @Benchmark
+    public long calculateCalories() {
+        long sum = 0;
+        for (Workout workout : workouts) {
+            sum += CalorieCalculator.calculateCalories(workout, 75);
+        }
+        return sum;
+    }
+
+}